@@ -0,0 +1,165 @@
+package com.health.alert;
+
+import com.health.cache.DoctorPatientCache;
+import com.health.entity.HealthAlert;
+import com.health.vo.AlertPush;
+import com.health.websocket.ClusterMessageRelay;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 预警实时推送
+ * 新预警推送到患者和其关联医生的/user/queue/alerts，同一患者在合并窗口内的预警合并为一次推送，
+ * 重度预警立即推送
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AlertPushService {
+    
+    public static final String DESTINATION = "/queue/alerts";
+    
+    private final ClusterMessageRelay messageRelay;
+    private final DoctorPatientCache doctorPatientCache;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${alert.push.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${alert.push.coalesce-window-ms:1000}")
+    private Long coalesceWindowMs;
+    
+    @Value("${alert.push.max-alerts-per-push:20}")
+    private Integer maxAlertsPerPush;
+    
+    private final Map<Long, List<HealthAlert>> pending = new HashMap<>();
+    private ScheduledExecutorService scheduler;
+    
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "alert-push");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * 推送已保存的预警，存在事务时在提交后执行
+     */
+    public void publish(List<HealthAlert> alerts) {
+        if (!enabled || alerts == null || alerts.isEmpty()) {
+            return;
+        }
+        List<HealthAlert> snapshot = new ArrayList<>(alerts);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(snapshot);
+                }
+            });
+        } else {
+            enqueue(snapshot);
+        }
+    }
+    
+    private void enqueue(List<HealthAlert> alerts) {
+        Map<Long, Boolean> urgentByPatient = new LinkedHashMap<>();
+        synchronized (pending) {
+            for (HealthAlert alert : alerts) {
+                Long patientId = alert.getUserId();
+                List<HealthAlert> window = pending.get(patientId);
+                if (window == null) {
+                    window = new ArrayList<>();
+                    pending.put(patientId, window);
+                    urgentByPatient.put(patientId, false);
+                }
+                window.add(alert);
+                if (alert.getAlertLevel() != null && alert.getAlertLevel() >= AlertSuppressor.MAX_LEVEL) {
+                    urgentByPatient.put(patientId, true);
+                }
+            }
+        }
+        // 新开的窗口到期推送，重度预警提前推送，窗口到期时已无待推送预警则跳过
+        urgentByPatient.forEach((patientId, urgent) -> {
+            try {
+                if (urgent) {
+                    scheduler.execute(() -> flush(patientId));
+                } else {
+                    scheduler.schedule(() -> flush(patientId), coalesceWindowMs, TimeUnit.MILLISECONDS);
+                }
+            } catch (Exception e) {
+                log.warn("预警推送已停止: patientId={}", patientId);
+            }
+        });
+    }
+    
+    private void flush(Long patientId) {
+        List<HealthAlert> alerts;
+        synchronized (pending) {
+            alerts = pending.remove(patientId);
+        }
+        if (alerts == null || alerts.isEmpty()) {
+            return;
+        }
+        
+        AlertPush push = new AlertPush();
+        push.setPatientId(patientId);
+        push.setAlertCount(alerts.size());
+        push.setMaxLevel(alerts.stream().map(HealthAlert::getAlertLevel)
+                .filter(Objects::nonNull).max(Integer::compare).orElse(null));
+        push.setAlerts(new ArrayList<>(alerts.subList(Math.max(0, alerts.size() - maxAlertsPerPush), alerts.size())));
+        meterRegistry.counter("health.alert.push.coalesced").increment(alerts.size() - 1);
+        
+        send(patientId, push, "patient");
+        try {
+            for (Long doctorId : doctorPatientCache.doctorsOf(patientId)) {
+                send(doctorId, push, "doctor");
+            }
+        } catch (Exception e) {
+            log.warn("查询患者关联医生失败，预警未推送给医生: patientId={}, {}", patientId, e.getMessage());
+        }
+    }
+    
+    private void send(Long userId, AlertPush push, String target) {
+        try {
+            messageRelay.sendToUser(userId, DESTINATION, push);
+            meterRegistry.counter("health.alert.push", "target", target).increment();
+        } catch (Exception e) {
+            log.warn("预警推送失败: userId={}, patientId={}, {}", userId, push.getPatientId(), e.getMessage());
+        }
+    }
+    
+    /**
+     * 停机时推送仍在合并窗口内的预警
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        List<Long> patientIds;
+        synchronized (pending) {
+            patientIds = new ArrayList<>(pending.keySet());
+        }
+        for (Long patientId : patientIds) {
+            flush(patientId);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.health.alert;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.health.entity.DoctorPatientRelation;
+import com.health.entity.HealthAlert;
+import com.health.entity.User;
+import com.health.mapper.DoctorPatientRelationMapper;
+import com.health.mapper.HealthAlertMapper;
+import com.health.service.AuthService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 预警补发
+ * 实时推送失败或会话因出站拥塞被断开时，客户端重连后按收到的最大预警ID从库中补拉未处理的预警；
+ * 患者补拉本人的预警，医生补拉关联患者的预警
+ */
+@Component
+@RequiredArgsConstructor
+public class AlertReplayService {
+    
+    private final HealthAlertMapper healthAlertMapper;
+    private final DoctorPatientRelationMapper relationMapper;
+    private final AuthService authService;
+    
+    @Value("${alert.push.replay-limit:200}")
+    private Integer replayLimit;
+    
+    public List<HealthAlert> replay(Long userId, Long afterId) {
+        List<Long> patientIds = patientsOf(userId);
+        if (patientIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return healthAlertMapper.selectList(new LambdaQueryWrapper<HealthAlert>()
+                .in(HealthAlert::getUserId, patientIds)
+                .eq(HealthAlert::getStatus, 0)
+                .gt(afterId != null, HealthAlert::getId, afterId)
+                .orderByAsc(HealthAlert::getId)
+                .last("LIMIT " + replayLimit));
+    }
+    
+    private List<Long> patientsOf(Long userId) {
+        User user = authService.getCurrentUser(userId);
+        if (!"DOCTOR".equals(user.getRole())) {
+            return Collections.singletonList(userId);
+        }
+        return relationMapper.selectList(new LambdaQueryWrapper<DoctorPatientRelation>()
+                        .select(DoctorPatientRelation::getPatientId)
+                        .eq(DoctorPatientRelation::getDoctorId, userId)
+                        .eq(DoctorPatientRelation::getStatus, 1))
+                .stream()
+                .map(DoctorPatientRelation::getPatientId)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,35 @@
+package com.health.alert;
+
+import com.health.entity.HealthAlert;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * 预警抑制器
+ * 同一用户、同一预警类型和级别在静默期内只放行一次；级别升高时直接放行，
+ * 更高级别在静默期内已放行时低级别一并抑制；静默期按产生预警的记录时刻计算
+ */
+public interface AlertSuppressor {
+    
+    /**
+     * 预警最高级别
+     */
+    int MAX_LEVEL = 3;
+    
+    /**
+     * 过滤重复预警，返回需要保存的预警，并为放行的预警登记静默期
+     *
+     * @param occurredAt 预警对应记录的时刻（毫秒）
+     */
+    List<HealthAlert> filter(List<HealthAlert> alerts, ToLongFunction<HealthAlert> occurredAt);
+    
+    /**
+     * 撤销放行预警登记的静默期，预警未能保存时调用；只撤销仍属于这些预警的登记
+     */
+    void release(List<HealthAlert> alerts, ToLongFunction<HealthAlert> occurredAt);
+    
+    default String key(HealthAlert alert, int level) {
+        return alert.getUserId() + ":" + alert.getAlertType() + ":" + level;
+    }
+}
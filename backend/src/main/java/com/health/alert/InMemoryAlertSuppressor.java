@@ -0,0 +1,113 @@
+package com.health.alert;
+
+import com.health.entity.HealthAlert;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * 基于本机内存的预警抑制器
+ * 静默判断按记录的测量时刻，过期清理按登记时的本机时间，补录的历史记录不会刚登记就被清掉
+ */
+@Component
+@ConditionalOnProperty(name = "alert.suppression.mode", havingValue = "memory", matchIfMissing = true)
+public class InMemoryAlertSuppressor implements AlertSuppressor {
+    
+    private final Map<String, Emission> lastEmitted = new ConcurrentHashMap<>();
+    private final Counter suppressedCounter;
+    
+    @Value("${alert.suppression.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${alert.suppression.quiet-window-minutes:360}")
+    private Long quietWindowMinutes;
+    
+    public InMemoryAlertSuppressor(MeterRegistry meterRegistry) {
+        this.suppressedCounter = meterRegistry.counter("health.alert.suppressed", "mode", "memory");
+    }
+    
+    @Override
+    public List<HealthAlert> filter(List<HealthAlert> alerts, ToLongFunction<HealthAlert> occurredAt) {
+        if (!enabled) {
+            return alerts;
+        }
+        long window = TimeUnit.MINUTES.toMillis(quietWindowMinutes);
+        
+        List<HealthAlert> passed = new ArrayList<>(alerts.size());
+        for (HealthAlert alert : alerts) {
+            if (tryEmit(alert, occurredAt.applyAsLong(alert), window)) {
+                passed.add(alert);
+            } else {
+                suppressedCounter.increment();
+            }
+        }
+        return passed;
+    }
+    
+    @Override
+    public void release(List<HealthAlert> alerts, ToLongFunction<HealthAlert> occurredAt) {
+        if (!enabled) {
+            return;
+        }
+        for (HealthAlert alert : alerts) {
+            if (alert.getAlertLevel() != null) {
+                long time = occurredAt.applyAsLong(alert);
+                lastEmitted.computeIfPresent(key(alert, alert.getAlertLevel()),
+                        (k, last) -> last.recordTime == time ? null : last);
+            }
+        }
+    }
+    
+    /**
+     * 清理登记已超过静默期的记录
+     */
+    @Scheduled(fixedDelay = 600000)
+    public void purgeExpired() {
+        long expireBefore = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(quietWindowMinutes);
+        lastEmitted.values().removeIf(last -> last.registeredAt < expireBefore);
+    }
+    
+    private boolean tryEmit(HealthAlert alert, long time, long window) {
+        if (alert.getAlertLevel() == null) {
+            return true;
+        }
+        for (int level = alert.getAlertLevel() + 1; level <= MAX_LEVEL; level++) {
+            Emission last = lastEmitted.get(key(alert, level));
+            if (last != null && Math.abs(time - last.recordTime) < window) {
+                return false;
+            }
+        }
+        
+        // 判断与登记在同一次原子更新中完成；补录的历史记录按各自时刻判断
+        boolean[] emitted = new boolean[1];
+        lastEmitted.compute(key(alert, alert.getAlertLevel()), (k, last) -> {
+            if (last == null || Math.abs(time - last.recordTime) >= window) {
+                emitted[0] = true;
+                return new Emission(time, System.currentTimeMillis());
+            }
+            return last;
+        });
+        return emitted[0];
+    }
+    
+    private static class Emission {
+        
+        private final long recordTime;
+        private final long registeredAt;
+        
+        private Emission(long recordTime, long registeredAt) {
+            this.recordTime = recordTime;
+            this.registeredAt = registeredAt;
+        }
+    }
+}
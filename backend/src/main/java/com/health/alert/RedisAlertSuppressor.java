@@ -0,0 +1,116 @@
+package com.health.alert;
+
+import com.health.entity.HealthAlert;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * 基于Redis的预警抑制器，多节点共享静默状态
+ * Redis不可用时放行，宁可重复也不丢预警
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "alert.suppression.mode", havingValue = "redis")
+public class RedisAlertSuppressor implements AlertSuppressor {
+    
+    private static final String KEY_PREFIX = "health:alert:suppress:";
+    
+    // KEYS: 本级别, 更高级别...; ARGV: 记录时刻, 静默期毫秒; 值为已放行预警的记录时刻，返回1表示放行并登记
+    private static final DefaultRedisScript<Long> EMIT_SCRIPT = new DefaultRedisScript<>(
+            "local time = tonumber(ARGV[1]) "
+                    + "local window = tonumber(ARGV[2]) "
+                    + "for i = 1, #KEYS do "
+                    + "  local last = redis.call('GET', KEYS[i]) "
+                    + "  if last and math.abs(time - tonumber(last)) < window then return 0 end "
+                    + "end "
+                    + "redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) "
+                    + "return 1", Long.class);
+    
+    // KEYS: 本级别; ARGV: 记录时刻; 仍是本次登记时才删除
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end "
+                    + "return 0", Long.class);
+    
+    private final StringRedisTemplate redisTemplate;
+    private final Counter suppressedCounter;
+    
+    @Value("${alert.suppression.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${alert.suppression.quiet-window-minutes:360}")
+    private Long quietWindowMinutes;
+    
+    public RedisAlertSuppressor(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.suppressedCounter = meterRegistry.counter("health.alert.suppressed", "mode", "redis");
+    }
+    
+    @Override
+    public List<HealthAlert> filter(List<HealthAlert> alerts, ToLongFunction<HealthAlert> occurredAt) {
+        if (!enabled) {
+            return alerts;
+        }
+        Duration window = Duration.ofMinutes(quietWindowMinutes);
+        
+        List<HealthAlert> passed = new ArrayList<>(alerts.size());
+        for (HealthAlert alert : alerts) {
+            if (tryEmit(alert, occurredAt.applyAsLong(alert), window)) {
+                passed.add(alert);
+            } else {
+                suppressedCounter.increment();
+            }
+        }
+        return passed;
+    }
+    
+    @Override
+    public void release(List<HealthAlert> alerts, ToLongFunction<HealthAlert> occurredAt) {
+        if (!enabled) {
+            return;
+        }
+        for (HealthAlert alert : alerts) {
+            if (alert.getAlertLevel() == null) {
+                continue;
+            }
+            try {
+                redisTemplate.execute(RELEASE_SCRIPT,
+                        Collections.singletonList(KEY_PREFIX + key(alert, alert.getAlertLevel())),
+                        String.valueOf(occurredAt.applyAsLong(alert)));
+            } catch (Exception e) {
+                log.warn("撤销预警静默期失败: {}", e.getMessage());
+            }
+        }
+    }
+    
+    private boolean tryEmit(HealthAlert alert, long time, Duration window) {
+        if (alert.getAlertLevel() == null) {
+            return true;
+        }
+        try {
+            List<String> keys = new ArrayList<>();
+            keys.add(KEY_PREFIX + key(alert, alert.getAlertLevel()));
+            for (int level = alert.getAlertLevel() + 1; level <= MAX_LEVEL; level++) {
+                keys.add(KEY_PREFIX + key(alert, level));
+            }
+            // 判断与登记在同一脚本内完成，静默期内只有第一个节点能登记成功
+            Long emitted = redisTemplate.execute(EMIT_SCRIPT, keys,
+                    String.valueOf(time), String.valueOf(window.toMillis()));
+            return emitted != null && emitted == 1L;
+        } catch (Exception e) {
+            log.warn("Redis预警抑制不可用，直接放行: {}", e.getMessage());
+            return true;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.health.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 一类请求专用的有界线程池
+ * 排队已满时立即拒绝，超过时限的任务以超时结束并中断，不同类请求互不占用线程
+ */
+public class Bulkhead {
+    
+    private static final long DEFER_TIMEOUT_MARGIN_MS = 1000;
+    
+    private final String name;
+    private final long timeoutMs;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService timer;
+    private final Counter rejectedCounter;
+    private final Counter timeoutCounter;
+    private final Timer waitTimer;
+    
+    public Bulkhead(String name, int threads, int queueCapacity, long timeoutMs,
+                    ScheduledExecutorService timer, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.timeoutMs = timeoutMs;
+        this.timer = timer;
+        this.rejectedCounter = meterRegistry.counter("health.bulkhead.rejected", "pool", name);
+        this.timeoutCounter = meterRegistry.counter("health.bulkhead.timeout", "pool", name);
+        this.waitTimer = meterRegistry.timer("health.bulkhead.wait", "pool", name);
+        
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, name + "-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, (r, e) -> {
+                    rejectedCounter.increment();
+                    throw new BulkheadRejectedException("系统繁忙，请稍后重试");
+                });
+        
+        int capacity = threads + queueCapacity;
+        Gauge.builder("health.bulkhead.active", executor, ThreadPoolExecutor::getActiveCount)
+             .tag("pool", name).register(meterRegistry);
+        Gauge.builder("health.bulkhead.queue", executor, e -> e.getQueue().size())
+             .tag("pool", name).register(meterRegistry);
+        Gauge.builder("health.bulkhead.saturation", executor,
+                      e -> (double) (e.getActiveCount() + e.getQueue().size()) / capacity)
+             .tag("pool", name).register(meterRegistry);
+    }
+    
+    /**
+     * 提交任务，排队已满时抛出BulkheadRejectedException；超时后结果以BulkheadTimeoutException结束
+     * 任务在池线程上执行，需要的请求上下文（如当前用户）应在提交前取出
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long submitted = System.nanoTime();
+        Future<?> running = executor.submit(() -> {
+            waitTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+            // 排队期间已超时的任务不再执行
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                result.complete(task.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        
+        ScheduledFuture<?> timeout = timer.schedule(() -> {
+            if (result.completeExceptionally(new BulkheadTimeoutException("请求处理超时，请稍后重试"))) {
+                timeoutCounter.increment();
+                running.cancel(true);
+            }
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+        result.whenComplete((value, e) -> timeout.cancel(false));
+        return result;
+    }
+    
+    /**
+     * 提交任务并作为Spring MVC异步结果返回，异步请求时限取本线程池的时限
+     * 额外留出一点余量，让线程池自身的超时先生效，响应以BulkheadTimeoutException结束
+     */
+    public <T> DeferredResult<T> defer(Supplier<T> task) {
+        DeferredResult<T> deferred = new DeferredResult<>(timeoutMs + DEFER_TIMEOUT_MARGIN_MS);
+        submit(task).whenComplete((value, e) -> {
+            if (e == null) {
+                deferred.setResult(value);
+            } else {
+                deferred.setErrorResult(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            }
+        });
+        return deferred;
+    }
+    
+    /**
+     * 作为Spring MVC异步请求的执行器使用，时限由异步请求超时控制
+     */
+    public AsyncTaskExecutor asTaskExecutor() {
+        return new AsyncTaskExecutor() {
+            @Override
+            public void execute(Runnable task) {
+                executor.execute(task);
+            }
+            
+            /**
+             * Spring 5.3中仍是抽象方法，只能实现，随接口一起标记为过时
+             */
+            @Override
+            @Deprecated
+            public void execute(Runnable task, long startTimeout) {
+                executor.execute(task);
+            }
+            
+            @Override
+            public Future<?> submit(Runnable task) {
+                return executor.submit(task);
+            }
+            
+            @Override
+            public <T> Future<T> submit(Callable<T> task) {
+                return executor.submit(task);
+            }
+        };
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+    
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
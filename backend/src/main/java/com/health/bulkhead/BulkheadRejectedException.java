@@ -0,0 +1,17 @@
+package com.health.bulkhead;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 隔离线程池排队已满时抛出，响应429
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class BulkheadRejectedException extends RejectedExecutionException {
+    
+    public BulkheadRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.health.bulkhead;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 隔离线程池中的任务超过时限时抛出，响应503
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class BulkheadTimeoutException extends RuntimeException {
+    
+    public BulkheadTimeoutException(String message) {
+        super(message);
+    }
+}
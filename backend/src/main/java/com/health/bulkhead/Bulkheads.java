@@ -0,0 +1,64 @@
+package com.health.bulkhead;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * 按请求类型划分的隔离线程池
+ * interactive-轻量查询 analytics-统计分析 bulk-导出等大批量操作
+ */
+@Component
+public class Bulkheads implements DisposableBean {
+    
+    private final ScheduledExecutorService timer;
+    private final Bulkhead interactive;
+    private final Bulkhead analytics;
+    private final Bulkhead bulk;
+    
+    public Bulkheads(MeterRegistry meterRegistry,
+                     @Value("${bulkhead.interactive.threads:16}") Integer interactiveThreads,
+                     @Value("${bulkhead.interactive.queue-capacity:200}") Integer interactiveQueue,
+                     @Value("${bulkhead.interactive.timeout-ms:3000}") Long interactiveTimeoutMs,
+                     @Value("${bulkhead.analytics.threads:4}") Integer analyticsThreads,
+                     @Value("${bulkhead.analytics.queue-capacity:50}") Integer analyticsQueue,
+                     @Value("${bulkhead.analytics.timeout-ms:30000}") Long analyticsTimeoutMs,
+                     @Value("${bulkhead.bulk.threads:2}") Integer bulkThreads,
+                     @Value("${bulkhead.bulk.queue-capacity:10}") Integer bulkQueue,
+                     @Value("${bulkhead.bulk.timeout-ms:600000}") Long bulkTimeoutMs) {
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "bulkhead-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        this.interactive = new Bulkhead("interactive", interactiveThreads, interactiveQueue,
+                interactiveTimeoutMs, timer, meterRegistry);
+        this.analytics = new Bulkhead("analytics", analyticsThreads, analyticsQueue,
+                analyticsTimeoutMs, timer, meterRegistry);
+        this.bulk = new Bulkhead("bulk", bulkThreads, bulkQueue, bulkTimeoutMs, timer, meterRegistry);
+    }
+    
+    public Bulkhead interactive() {
+        return interactive;
+    }
+    
+    public Bulkhead analytics() {
+        return analytics;
+    }
+    
+    public Bulkhead bulk() {
+        return bulk;
+    }
+    
+    @Override
+    public void destroy() {
+        interactive.shutdown();
+        analytics.shutdown();
+        bulk.shutdown();
+        timer.shutdownNow();
+    }
+}
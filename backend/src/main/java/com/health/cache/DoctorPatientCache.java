@@ -0,0 +1,109 @@
+package com.health.cache;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.health.entity.DoctorPatientRelation;
+import com.health.mapper.DoctorPatientRelationMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 患者关联医生缓存
+ * 本机LRU缓存，按TTL过期。医患关系由管理端直接维护在库中，本应用没有写入路径，
+ * 新建关联通过isLinked未命中时回库重查立即生效，解除关联最迟在TTL后生效
+ */
+@Component
+@RequiredArgsConstructor
+public class DoctorPatientCache {
+    
+    private final DoctorPatientRelationMapper relationMapper;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${alert.push.doctor-cache.max-size:10000}")
+    private Integer maxSize;
+    
+    @Value("${alert.push.doctor-cache.ttl-seconds:60}")
+    private Long ttlSeconds;
+    
+    private Map<Long, CachedDoctors> cache;
+    
+    @PostConstruct
+    public void init() {
+        cache = new LinkedHashMap<Long, CachedDoctors>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedDoctors> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+    
+    /**
+     * 患者当前关联的医生ID
+     */
+    public List<Long> doctorsOf(Long patientId) {
+        long now = System.currentTimeMillis();
+        CachedDoctors cached;
+        synchronized (cache) {
+            cached = cache.get(patientId);
+        }
+        if (cached != null && cached.expiresAt > now) {
+            record("local");
+            return cached.doctorIds;
+        }
+        
+        record("miss");
+        List<Long> doctorIds = Collections.unmodifiableList(relationMapper.selectList(
+                        new LambdaQueryWrapper<DoctorPatientRelation>()
+                                .select(DoctorPatientRelation::getDoctorId)
+                                .eq(DoctorPatientRelation::getPatientId, patientId)
+                                .eq(DoctorPatientRelation::getStatus, 1))
+                .stream()
+                .map(DoctorPatientRelation::getDoctorId)
+                .collect(Collectors.toList()));
+        synchronized (cache) {
+            cache.put(patientId, new CachedDoctors(doctorIds, now + TimeUnit.SECONDS.toMillis(ttlSeconds)));
+        }
+        return doctorIds;
+    }
+    
+    /**
+     * 医生与患者是否存在正常关联，缓存中没有该医生时回库重查，避免新建的关联在缓存过期前被拒绝
+     */
+    public boolean isLinked(Long patientId, Long doctorId) {
+        if (doctorsOf(patientId).contains(doctorId)) {
+            return true;
+        }
+        evict(patientId);
+        return doctorsOf(patientId).contains(doctorId);
+    }
+    
+    public void evict(Long patientId) {
+        synchronized (cache) {
+            cache.remove(patientId);
+        }
+    }
+    
+    private void record(String result) {
+        meterRegistry.counter("health.cache.requests", "cache", "doctor-patient", "result", result).increment();
+    }
+    
+    private static class CachedDoctors {
+        
+        private final List<Long> doctorIds;
+        private final long expiresAt;
+        
+        private CachedDoctors(List<Long> doctorIds, long expiresAt) {
+            this.doctorIds = doctorIds;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
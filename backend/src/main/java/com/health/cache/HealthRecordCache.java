@@ -0,0 +1,161 @@
+package com.health.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * 健康数据读穿透缓存
+ * 每个用户的统计、趋势结果存放在同一个Redis Hash中，写入该用户记录时整体删除并递增版本号，
+ * 回填时版本号已变化说明查库期间有写入，放弃回填，避免旧数据覆盖删除
+ * Redis连接不可用时直接查库，并在一段时间内跳过Redis
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HealthRecordCache {
+    
+    private static final String KEY_PREFIX = "health:record:cache:";
+    private static final String VERSION_PREFIX = "health:record:cache-version:";
+    
+    // KEYS: 缓存Hash, 版本号; ARGV: 查库前读到的版本号, 字段, 值, TTL
+    private static final DefaultRedisScript<Long> FILL_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[2]) or '') ~= ARGV[1] then return 0 end "
+                    + "redis.call('HSET', KEYS[1], ARGV[2], ARGV[3]) "
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[4]) "
+                    + "return 1", Long.class);
+    
+    // KEYS: 缓存Hash, 版本号; ARGV: 版本号TTL
+    private static final DefaultRedisScript<Long> EVICT_SCRIPT = new DefaultRedisScript<>(
+            "local version = redis.call('INCR', KEYS[2]) "
+                    + "redis.call('EXPIRE', KEYS[2], ARGV[1]) "
+                    + "redis.call('DEL', KEYS[1]) "
+                    + "return version", Long.class);
+    
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${health-record.cache.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${health-record.cache.ttl-seconds:300}")
+    private Long ttlSeconds;
+    
+    @Value("${health-record.cache.retry-interval-ms:30000}")
+    private Long retryIntervalMs;
+    
+    private volatile long redisDownUntil;
+    
+    /**
+     * 读取缓存，未命中时调用loader查库并回填
+     *
+     * @param cacheName 缓存名称，用于指标统计
+     * @param userId    用户ID
+     * @param field     Hash字段，需包含指标、窗口等全部查询参数
+     */
+    public <T> T getOrLoad(String cacheName, Long userId, String field,
+                           TypeReference<T> type, Supplier<T> loader) {
+        if (!redisAvailable()) {
+            record(cacheName, "bypass");
+            return loader.get();
+        }
+        
+        String key = KEY_PREFIX + userId;
+        String hashField = cacheName + ":" + field;
+        String version;
+        try {
+            Object cached = redisTemplate.opsForHash().get(key, hashField);
+            if (cached != null) {
+                try {
+                    T value = objectMapper.readValue(cached.toString(), type);
+                    record(cacheName, "hit");
+                    return value;
+                } catch (Exception e) {
+                    // 缓存内容无法解析（如结构变更），删除该字段后查库
+                    log.warn("健康数据缓存解析失败，已删除: {} {}: {}", key, hashField, e.getMessage());
+                    redisTemplate.opsForHash().delete(key, hashField);
+                }
+            }
+            String current = redisTemplate.opsForValue().get(VERSION_PREFIX + userId);
+            version = current == null ? "" : current;
+        } catch (Exception e) {
+            handleRedisError(e);
+            record(cacheName, "error");
+            return loader.get();
+        }
+        
+        record(cacheName, "miss");
+        T value = loader.get();
+        try {
+            redisTemplate.execute(FILL_SCRIPT, Arrays.asList(key, VERSION_PREFIX + userId),
+                    version, hashField, objectMapper.writeValueAsString(value), String.valueOf(ttlSeconds));
+        } catch (Exception e) {
+            handleRedisError(e);
+        }
+        return value;
+    }
+    
+    /**
+     * 删除用户的全部缓存，存在事务时在提交后执行，避免回填未提交前的旧数据
+     */
+    public void evict(Long userId) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doEvict(userId);
+                }
+            });
+        } else {
+            doEvict(userId);
+        }
+    }
+    
+    private void doEvict(Long userId) {
+        try {
+            // 版本号至少保留一个缓存TTL，覆盖查库期间的并发回填
+            redisTemplate.execute(EVICT_SCRIPT, Arrays.asList(KEY_PREFIX + userId, VERSION_PREFIX + userId),
+                    String.valueOf(ttlSeconds));
+        } catch (Exception e) {
+            // 删除失败时依赖TTL兜底
+            handleRedisError(e);
+        }
+    }
+    
+    private boolean redisAvailable() {
+        return enabled && System.currentTimeMillis() >= redisDownUntil;
+    }
+    
+    /**
+     * 只有连接失败或超时才视为Redis不可用，其他错误只记录日志
+     */
+    private void handleRedisError(Exception e) {
+        if (e instanceof RedisConnectionFailureException || e instanceof QueryTimeoutException) {
+            redisDownUntil = System.currentTimeMillis() + retryIntervalMs;
+            log.warn("Redis缓存不可用，{}ms内直接查询数据库: {}", retryIntervalMs, e.getMessage());
+        } else {
+            log.warn("Redis缓存操作失败: {}", e.getMessage());
+        }
+    }
+    
+    private void record(String cacheName, String result) {
+        meterRegistry.counter("health.cache.requests", "cache", cacheName, "result", result).increment();
+    }
+}
@@ -0,0 +1,259 @@
+package com.health.cache;
+
+import cn.hutool.core.bean.BeanUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.health.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 用户信息两级缓存
+ * 本机LRU缓存加Redis缓存，修改用户信息时删除Redis并通过发布订阅通知所有节点删除本机缓存；
+ * 回填时校验查库期间没有发生删除，避免旧数据在删除之后写回缓存。缓存中的用户不含密码
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserCache implements MessageListener {
+    
+    private static final String KEY_PREFIX = "health:user:cache:";
+    private static final String VERSION_PREFIX = "health:user:cache-version:";
+    private static final String INVALIDATE_CHANNEL = "health:user:invalidate";
+    
+    // KEYS: 缓存, 版本号; ARGV: 查库前读到的版本号, 值, TTL
+    private static final DefaultRedisScript<Long> FILL_SCRIPT = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[2]) or '') ~= ARGV[1] then return 0 end "
+                    + "redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3]) "
+                    + "return 1", Long.class);
+    
+    // KEYS: 缓存, 版本号; ARGV: 版本号TTL
+    private static final DefaultRedisScript<Long> EVICT_SCRIPT = new DefaultRedisScript<>(
+            "local version = redis.call('INCR', KEYS[2]) "
+                    + "redis.call('EXPIRE', KEYS[2], ARGV[1]) "
+                    + "redis.call('DEL', KEYS[1]) "
+                    + "return version", Long.class);
+    
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${user.cache.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${user.cache.local-max-size:10000}")
+    private Integer localMaxSize;
+    
+    @Value("${user.cache.local-ttl-seconds:60}")
+    private Long localTtlSeconds;
+    
+    @Value("${user.cache.redis-ttl-seconds:1800}")
+    private Long redisTtlSeconds;
+    
+    @Value("${user.cache.retry-interval-ms:30000}")
+    private Long retryIntervalMs;
+    
+    private Map<Long, LocalEntry> local;
+    private final AtomicLong localEvictions = new AtomicLong();
+    private volatile long redisDownUntil;
+    
+    @PostConstruct
+    public void init() {
+        local = new LinkedHashMap<Long, LocalEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, LocalEntry> eldest) {
+                return size() > localMaxSize;
+            }
+        };
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+    
+    /**
+     * 依次读取本机缓存、Redis缓存，都未命中时调用loader查库并回填
+     */
+    public User getOrLoad(Long userId, Supplier<User> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        
+        long now = System.currentTimeMillis();
+        LocalEntry entry;
+        synchronized (local) {
+            entry = local.get(userId);
+        }
+        if (entry != null && entry.expiresAt > now) {
+            record("local");
+            return copy(entry.user);
+        }
+        
+        // 查库前记下本机删除次数和Redis版本号，回填时据此判断期间是否有删除
+        long evictions = localEvictions.get();
+        String[] version = new String[1];
+        User user = readRedis(userId, version);
+        if (user != null) {
+            record("redis");
+        } else {
+            record("miss");
+            user = sanitize(loader.get());
+            if (version[0] != null) {
+                writeRedis(userId, user, version[0]);
+            }
+        }
+        synchronized (local) {
+            if (localEvictions.get() == evictions) {
+                local.put(userId, new LocalEntry(user, now + TimeUnit.SECONDS.toMillis(localTtlSeconds)));
+            }
+        }
+        return copy(user);
+    }
+    
+    /**
+     * 删除用户缓存并通知其他节点，存在事务时在提交后执行
+     */
+    public void evict(Long userId) {
+        if (!enabled || userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doEvict(userId);
+                }
+            });
+        } else {
+            doEvict(userId);
+        }
+    }
+    
+    /**
+     * 收到其他节点的失效通知，删除本机缓存
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Long userId = Long.valueOf(new String(message.getBody(), StandardCharsets.UTF_8));
+            removeLocal(userId);
+        } catch (NumberFormatException e) {
+            log.warn("无效的用户缓存失效通知: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Redis处于降级期时也尝试删除和通知，删除失败依赖Redis TTL兜底
+     */
+    private void doEvict(Long userId) {
+        removeLocal(userId);
+        try {
+            // 版本号至少保留一个缓存TTL，覆盖查库期间的并发回填
+            redisTemplate.execute(EVICT_SCRIPT, Arrays.asList(KEY_PREFIX + userId, VERSION_PREFIX + userId),
+                    String.valueOf(redisTtlSeconds));
+        } catch (Exception e) {
+            markRedisDown(e);
+        }
+        try {
+            redisTemplate.convertAndSend(INVALIDATE_CHANNEL, String.valueOf(userId));
+        } catch (Exception e) {
+            // 通知失败时其他节点依赖本机缓存TTL兜底
+            markRedisDown(e);
+        }
+    }
+    
+    private void removeLocal(Long userId) {
+        synchronized (local) {
+            localEvictions.incrementAndGet();
+            local.remove(userId);
+        }
+    }
+    
+    /**
+     * 读取Redis缓存，同时把当前版本号写入version[0]；Redis不可用时version[0]为null，不回填
+     */
+    private User readRedis(Long userId, String[] version) {
+        if (System.currentTimeMillis() < redisDownUntil) {
+            return null;
+        }
+        List<String> values;
+        try {
+            values = redisTemplate.opsForValue().multiGet(Arrays.asList(KEY_PREFIX + userId, VERSION_PREFIX + userId));
+        } catch (Exception e) {
+            markRedisDown(e);
+            return null;
+        }
+        if (values == null) {
+            return null;
+        }
+        version[0] = values.get(1) == null ? "" : values.get(1);
+        String cached = values.get(0);
+        if (cached == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(cached, User.class);
+        } catch (Exception e) {
+            // 缓存内容无法解析时按未命中处理，回填覆盖
+            log.warn("用户缓存解析失败: userId={}, {}", userId, e.getMessage());
+            return null;
+        }
+    }
+    
+    private void writeRedis(Long userId, User user, String version) {
+        try {
+            redisTemplate.execute(FILL_SCRIPT, Arrays.asList(KEY_PREFIX + userId, VERSION_PREFIX + userId),
+                    version, objectMapper.writeValueAsString(user), String.valueOf(redisTtlSeconds));
+        } catch (Exception e) {
+            markRedisDown(e);
+        }
+    }
+    
+    private User sanitize(User user) {
+        User safe = copy(user);
+        safe.setPassword(null);
+        return safe;
+    }
+    
+    private User copy(User user) {
+        return BeanUtil.copyProperties(user, User.class);
+    }
+    
+    private void markRedisDown(Exception e) {
+        redisDownUntil = System.currentTimeMillis() + retryIntervalMs;
+        log.warn("Redis用户缓存不可用，{}ms内只使用本机缓存: {}", retryIntervalMs, e.getMessage());
+    }
+    
+    private void record(String result) {
+        meterRegistry.counter("health.cache.requests", "cache", "user", "result", result).increment();
+    }
+    
+    private static class LocalEntry {
+        
+        private final User user;
+        private final long expiresAt;
+        
+        private LocalEntry(User user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.health.cache;
+
+import com.health.mapper.UserMapper;
+import com.health.utils.BloomFilter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+
+/**
+ * 用户名布隆过滤器
+ * 启动后流式读取用户表预热，注册成功时追加；判定不存在时注册可跳过查重查询，
+ * 预热完成前一律返回可能存在，最终由数据库唯一约束兜底
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UsernameBloomFilter {
+    
+    private final UserMapper userMapper;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${user.bloom-filter.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${user.bloom-filter.expected-insertions:1000000}")
+    private Long expectedInsertions;
+    
+    @Value("${user.bloom-filter.fpp:0.01}")
+    private Double fpp;
+    
+    private BloomFilter filter;
+    private volatile boolean ready;
+    
+    @PostConstruct
+    public void init() {
+        filter = new BloomFilter(expectedInsertions, fpp);
+    }
+    
+    /**
+     * 在后台线程预热，不阻塞启动
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::load, "username-bloom-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    /**
+     * 返回false时用户名一定不存在
+     */
+    public boolean mightContain(String username) {
+        return !ready || filter.mightContain(username);
+    }
+    
+    public void put(String username) {
+        if (enabled) {
+            filter.put(username);
+        }
+    }
+    
+    private void load() {
+        long start = System.currentTimeMillis();
+        try {
+            Long count = transactionTemplate.execute(status -> {
+                long loaded = 0;
+                try (Cursor<String> cursor = userMapper.streamUsernames()) {
+                    for (String username : cursor) {
+                        filter.put(username);
+                        loaded++;
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e.getMessage());
+                }
+                return loaded;
+            });
+            ready = true;
+            if (count != null && count > expectedInsertions) {
+                log.warn("用户数{}已超过布隆过滤器预计容量{}，误判率将升高", count, expectedInsertions);
+            }
+            log.info("用户名布隆过滤器预热完成: {}个用户名, {}位, {}个哈希函数, 耗时{}ms",
+                    count, filter.getBitSize(), filter.getHashCount(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("用户名布隆过滤器预热失败，注册时全部查库", e);
+        }
+    }
+}
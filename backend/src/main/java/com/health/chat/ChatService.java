@@ -0,0 +1,245 @@
+package com.health.chat;
+
+import cn.hutool.core.util.IdUtil;
+import com.health.cache.DoctorPatientCache;
+import com.health.dto.ChatSendRequest;
+import com.health.entity.Message;
+import com.health.mapper.MessageMapper;
+import com.health.service.AuthService;
+import com.health.entity.User;
+import com.health.vo.ChatContact;
+import com.health.vo.CursorPage;
+import com.health.websocket.ClusterMessageRelay;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 医患聊天服务
+ * 消息立即投递到接收方的/user/queue/chat.messages，保存由写入缓冲批量完成
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChatService {
+    
+    static final String MESSAGE_DESTINATION = "/queue/chat.messages";
+    static final String REPLAY_DESTINATION = "/queue/chat.replay";
+    
+    private final ClusterMessageRelay messageRelay;
+    private final MessageWriteBuffer messageWriteBuffer;
+    private final MessageMapper messageMapper;
+    private final AuthService authService;
+    private final UnreadCounter unreadCounter;
+    private final DoctorPatientCache doctorPatientCache;
+    
+    @Value("${chat.max-content-length:2000}")
+    private Integer maxContentLength;
+    
+    @Value("${chat.replay-limit:500}")
+    private Integer replayLimit;
+    
+    @Value("${chat.contacts.max-size:500}")
+    private Integer contactsMaxSize;
+    
+    @Value("${chat.history.max-page-size:100}")
+    private Integer historyMaxPageSize;
+    
+    @Value("${chat.replay-followup-ms:2000}")
+    private Long replayFollowupMs;
+    
+    private ScheduledExecutorService followupScheduler;
+    
+    @PostConstruct
+    public void init() {
+        followupScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "chat-followup");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        followupScheduler.shutdownNow();
+    }
+    
+    /**
+     * 发送消息，返回带ID的消息
+     */
+    public Message send(Long fromUserId, ChatSendRequest request) {
+        if (request.getToUserId() == null) {
+            throw new RuntimeException("接收者不能为空");
+        }
+        if (request.getToUserId().equals(fromUserId)) {
+            throw new RuntimeException("不能给自己发送消息");
+        }
+        boolean hasFile = request.getFileUrl() != null && !request.getFileUrl().isEmpty();
+        if ((request.getContent() == null || request.getContent().isEmpty()) && !hasFile) {
+            throw new RuntimeException("消息内容不能为空");
+        }
+        if (request.getContent() != null && request.getContent().length() > maxContentLength) {
+            throw new RuntimeException("消息内容不能超过" + maxContentLength + "个字符");
+        }
+        // 接收者必须存在，且与发送者是正常的医患关系，均走缓存
+        requireLinked(authService.getCurrentUser(fromUserId), authService.getCurrentUser(request.getToUserId()));
+        
+        Message message = new Message();
+        message.setId(IdUtil.getSnowflakeNextId());
+        message.setFromUserId(fromUserId);
+        message.setToUserId(request.getToUserId());
+        message.setContent(request.getContent());
+        message.setMessageType(request.getMessageType() == null ? 1 : request.getMessageType());
+        message.setFileUrl(request.getFileUrl());
+        message.setStatus(0);
+        message.setCreateTime(LocalDateTime.now());
+        
+        messageRelay.sendToUser(message.getToUserId(), MESSAGE_DESTINATION, message);
+        messageWriteBuffer.enqueue(message, request.getClientMsgId());
+        unreadCounter.onSent(message);
+        return message;
+    }
+    
+    /**
+     * 重连补发：afterId之后发给该用户的消息，包括本节点尚未保存的，按ID升序
+     * 其他节点写入缓冲中的消息此时还查不到，等各节点写入缓冲刷完后再查一次，把漏掉的消息补推到/user/queue/chat.replay，
+     * 客户端按消息ID去重
+     */
+    public List<Message> replay(Long userId, Long afterId) {
+        Map<Long, Message> merged = new LinkedHashMap<>();
+        for (Message message : messageMapper.selectForReplay(userId, afterId, replayLimit)) {
+            merged.put(message.getId(), message);
+        }
+        for (Message message : messageWriteBuffer.pendingFor(userId, afterId)) {
+            merged.putIfAbsent(message.getId(), message);
+        }
+        List<Message> messages = new ArrayList<>(merged.values());
+        messages.sort(Comparator.comparing(Message::getId));
+        if (messages.size() > replayLimit) {
+            return messages.subList(0, replayLimit);
+        }
+        
+        Set<Long> replayed = merged.keySet();
+        followupScheduler.schedule(() -> replayFollowup(userId, afterId, replayed), replayFollowupMs, TimeUnit.MILLISECONDS);
+        return messages;
+    }
+    
+    /**
+     * 会话历史，按发送时间倒序游标分页
+     */
+    public CursorPage<Message> history(Long userId, Long peerId, String cursor, Integer pageSize) {
+        int size = pageSize == null ? 20 : Math.min(Math.max(pageSize, 1), historyMaxPageSize);
+        LocalDateTime beforeTime = null;
+        Long beforeId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                beforeTime = LocalDateTime.parse(parts[0]);
+                beforeId = Long.valueOf(parts[1]);
+            } catch (Exception e) {
+                throw new RuntimeException("分页游标无效");
+            }
+        }
+        // 多取一条判断是否还有下一页
+        List<Message> messages = messageMapper.selectConversation(userId, peerId, beforeTime, beforeId, size + 1);
+        boolean hasMore = messages.size() > size;
+        if (hasMore) {
+            messages = messages.subList(0, size);
+        }
+        
+        CursorPage<Message> page = new CursorPage<>();
+        page.setRecords(messages);
+        page.setHasMore(hasMore);
+        if (hasMore) {
+            Message last = messages.get(messages.size() - 1);
+            String raw = last.getCreateTime() + "|" + last.getId();
+            page.setNextCursor(Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8)));
+        }
+        return page;
+    }
+    
+    /**
+     * 将与peerId的会话标记为已读
+     * 此刻之前发出的消息可能还在各节点的写入缓冲中，入库时仍为未读；以当前ID为水位，
+     * 等各节点写入缓冲刷完后再标记一次，水位之后新发的消息不受影响
+     */
+    public void markRead(Long userId, Long peerId) {
+        long watermark = IdUtil.getSnowflakeNextId();
+        messageMapper.markConversationRead(userId, peerId, watermark);
+        unreadCounter.clear(userId, peerId);
+        followupScheduler.schedule(() -> markReadFollowup(userId, peerId, watermark),
+                replayFollowupMs, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * 总未读数
+     */
+    public long unreadTotal(Long userId) {
+        return unreadCounter.totalOf(userId);
+    }
+    
+    /**
+     * 联系人列表，未读数和最近消息时间来自Redis，用户信息走用户缓存
+     */
+    public List<ChatContact> contacts(Long userId, Integer limit) {
+        List<ChatContact> contacts = unreadCounter.contactsOf(userId, Math.min(limit, contactsMaxSize));
+        for (ChatContact contact : contacts) {
+            User user = authService.getCurrentUser(contact.getUserId());
+            contact.setUsername(user.getUsername());
+            contact.setRealName(user.getRealName());
+            contact.setAvatar(user.getAvatar());
+            contact.setRole(user.getRole());
+        }
+        return contacts;
+    }
+    
+    /**
+     * 聊天只允许在存在正常医患关系的医生和患者之间进行
+     */
+    private void requireLinked(User from, User to) {
+        User doctor = "DOCTOR".equals(from.getRole()) ? from : to;
+        User patient = doctor == from ? to : from;
+        if (!"DOCTOR".equals(doctor.getRole()) || !"PATIENT".equals(patient.getRole())
+                || !doctorPatientCache.isLinked(patient.getId(), doctor.getId())) {
+            throw new RuntimeException("只能与关联的医生或患者聊天");
+        }
+    }
+    
+    private void markReadFollowup(Long userId, Long peerId, long watermark) {
+        try {
+            messageMapper.markConversationRead(userId, peerId, watermark);
+        } catch (Exception e) {
+            log.warn("会话补充标记已读失败: userId={}, peerId={}, {}", userId, peerId, e.getMessage());
+        }
+    }
+    
+    private void replayFollowup(Long userId, Long afterId, Set<Long> replayed) {
+        try {
+            List<Message> missed = messageMapper.selectForReplay(userId, afterId, replayLimit).stream()
+                    .filter(message -> !replayed.contains(message.getId()))
+                    .collect(Collectors.toList());
+            if (!missed.isEmpty()) {
+                messageRelay.sendToUser(userId, REPLAY_DESTINATION, missed);
+            }
+        } catch (Exception e) {
+            log.warn("补推重连消息失败: userId={}, {}", userId, e.getMessage());
+        }
+    }
+}
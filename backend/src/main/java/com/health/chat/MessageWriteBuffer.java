@@ -0,0 +1,200 @@
+package com.health.chat;
+
+import com.health.entity.Message;
+import com.health.mapper.MessageMapper;
+import com.health.vo.ChatAck;
+import com.health.websocket.ClusterMessageRelay;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 聊天消息延迟写入缓冲
+ * 消息先投递给接收方，再由后台线程按批次大小或等待时间合并插入，保存后向发送方确认
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MessageWriteBuffer implements SmartLifecycle {
+    
+    static final String ACK_DESTINATION = "/queue/chat.acks";
+    
+    private final MessageMapper messageMapper;
+    private final ClusterMessageRelay messageRelay;
+    
+    @Value("${chat.write-behind.queue-capacity:10000}")
+    private Integer queueCapacity;
+    
+    @Value("${chat.write-behind.batch-size:200}")
+    private Integer batchSize;
+    
+    @Value("${chat.write-behind.linger-ms:100}")
+    private Long lingerMs;
+    
+    @Value("${chat.write-behind.shutdown-timeout-ms:10000}")
+    private Long shutdownTimeoutMs;
+    
+    private BlockingQueue<PendingMessage> queue;
+    private Thread writer;
+    private volatile boolean running;
+    
+    /**
+     * 加入写入队列；队列已满时在调用线程上直接写入，消息不丢弃
+     */
+    public void enqueue(Message message, String clientMsgId) {
+        PendingMessage pending = new PendingMessage(message, clientMsgId);
+        if (!running || !queue.offer(pending)) {
+            flush(Collections.singletonList(pending));
+        }
+    }
+    
+    /**
+     * 仍在队列中、尚未保存的发给该用户的消息，用于重连补发
+     */
+    public List<Message> pendingFor(Long toUserId, Long afterId) {
+        if (queue == null) {
+            return new ArrayList<>();
+        }
+        return queue.stream()
+                .map(PendingMessage::getMessage)
+                .filter(m -> m.getToUserId().equals(toUserId) && (afterId == null || m.getId() > afterId))
+                .collect(Collectors.toList());
+    }
+    
+    @Override
+    public void start() {
+        if (running) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        writer = new Thread(this::drainLoop, "chat-writer");
+        writer.setDaemon(true);
+        running = true;
+        writer.start();
+    }
+    
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PendingMessage> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (int from = 0; from < remaining.size(); from += batchSize) {
+            flush(remaining.subList(from, Math.min(from + batchSize, remaining.size())));
+        }
+        log.info("聊天消息写入缓冲已停止");
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * 在WebSocket处理停止之后再停止，排空时不再有新消息进入
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 2048;
+    }
+    
+    private void drainLoop() {
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                
+                // 在等待时间内尽量凑满一批
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remainNanos = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remainNanos <= 0) {
+                        break;
+                    }
+                    PendingMessage next = queue.poll(remainNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                flush(batch);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void flush(List<PendingMessage> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            messageMapper.insertBatch(batch.stream().map(PendingMessage::getMessage).collect(Collectors.toList()));
+            batch.forEach(pending -> ack(pending, ChatAck.PERSISTED));
+        } catch (Exception e) {
+            // 整批失败时逐条重试，只让出错的消息失败
+            log.warn("聊天消息批量保存失败，逐条重试{}条: {}", batch.size(), e.getMessage());
+            for (PendingMessage pending : batch) {
+                try {
+                    messageMapper.insertBatch(Collections.singletonList(pending.getMessage()));
+                    ack(pending, ChatAck.PERSISTED);
+                } catch (Exception single) {
+                    log.error("聊天消息保存失败: id={}", pending.getMessage().getId(), single);
+                    ack(pending, ChatAck.FAILED);
+                }
+            }
+        }
+    }
+    
+    private void ack(PendingMessage pending, String status) {
+        Message message = pending.getMessage();
+        messageRelay.sendToUser(message.getFromUserId(), ACK_DESTINATION,
+                new ChatAck(pending.getClientMsgId(), message.getId(), status));
+    }
+    
+    private static class PendingMessage {
+        
+        private final Message message;
+        private final String clientMsgId;
+        
+        private PendingMessage(Message message, String clientMsgId) {
+            this.message = message;
+            this.clientMsgId = clientMsgId;
+        }
+        
+        Message getMessage() {
+            return message;
+        }
+        
+        String getClientMsgId() {
+            return clientMsgId;
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.health.chat;
+
+import com.health.entity.Message;
+import com.health.mapper.MessageMapper;
+import com.health.vo.ChatContact;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 聊天未读数和联系人列表，保存在Redis中增量维护
+ * 发送时接收方的会话未读数和总未读数加一，双方联系人按最近消息时间排序；已读时清零。
+ * 定时任务按数据库中的未读消息逐个用户重算，校正保存失败或Redis数据丢失造成的偏差
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UnreadCounter {
+    
+    private static final String UNREAD_PREFIX = "health:chat:unread:";
+    private static final String TOTAL_PREFIX = "health:chat:unread-total:";
+    private static final String CONTACTS_PREFIX = "health:chat:contacts:";
+    
+    private static final int EXISTS_BATCH_SIZE = 500;
+    
+    // KEYS: 接收方会话未读, 接收方总未读, 发送方联系人, 接收方联系人; ARGV: 发送方, 接收方, 时间, 联系人上限
+    private static final DefaultRedisScript<Long> SENT_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('HINCRBY', KEYS[1], ARGV[1], 1) "
+                    + "local total = redis.call('INCR', KEYS[2]) "
+                    + "redis.call('ZADD', KEYS[3], ARGV[3], ARGV[2]) "
+                    + "redis.call('ZADD', KEYS[4], ARGV[3], ARGV[1]) "
+                    + "local max = tonumber(ARGV[4]) "
+                    + "redis.call('ZREMRANGEBYRANK', KEYS[3], 0, -max - 1) "
+                    + "redis.call('ZREMRANGEBYRANK', KEYS[4], 0, -max - 1) "
+                    + "return total", Long.class);
+    
+    // KEYS: 会话未读, 总未读; ARGV: 对方; 返回清零的条数
+    private static final DefaultRedisScript<Long> READ_SCRIPT = new DefaultRedisScript<>(
+            "local n = tonumber(redis.call('HGET', KEYS[1], ARGV[1]) or '0') "
+                    + "if n > 0 then "
+                    + "  redis.call('HDEL', KEYS[1], ARGV[1]) "
+                    + "  if redis.call('DECRBY', KEYS[2], n) <= 0 then redis.call('DEL', KEYS[2]) end "
+                    + "end "
+                    + "return n", Long.class);
+    
+    // KEYS: 会话未读, 总未读; ARGV: 对方1, 未读数1, 对方2, 未读数2...
+    private static final DefaultRedisScript<Long> RESET_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('DEL', KEYS[1], KEYS[2]) "
+                    + "local total = 0 "
+                    + "for i = 1, #ARGV, 2 do "
+                    + "  redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) "
+                    + "  total = total + tonumber(ARGV[i + 1]) "
+                    + "end "
+                    + "if total > 0 then redis.call('SET', KEYS[2], total) end "
+                    + "return total", Long.class);
+    
+    // KEYS: 联系人; ARGV: 保留上限, 联系人1, 时间1, 联系人2, 时间2...; 只把分数往新推，不覆盖重算期间新发的消息
+    private static final DefaultRedisScript<Long> CONTACTS_SCRIPT = new DefaultRedisScript<>(
+            "for i = 2, #ARGV, 2 do "
+                    + "  local score = redis.call('ZSCORE', KEYS[1], ARGV[i]) "
+                    + "  if not score or tonumber(score) < tonumber(ARGV[i + 1]) then "
+                    + "    redis.call('ZADD', KEYS[1], ARGV[i + 1], ARGV[i]) "
+                    + "  end "
+                    + "end "
+                    + "local max = tonumber(ARGV[1]) "
+                    + "redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -max - 1) "
+                    + "return redis.call('ZCARD', KEYS[1])", Long.class);
+    
+    private final StringRedisTemplate redisTemplate;
+    private final MessageMapper messageMapper;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${chat.contacts.max-size:500}")
+    private Integer contactsMaxSize;
+    
+    /**
+     * 消息发送后更新未读数和双方联系人，失败时等待定时重算校正
+     */
+    public void onSent(Message message) {
+        String from = String.valueOf(message.getFromUserId());
+        String to = String.valueOf(message.getToUserId());
+        try {
+            redisTemplate.execute(SENT_SCRIPT,
+                    Arrays.asList(UNREAD_PREFIX + to, TOTAL_PREFIX + to, CONTACTS_PREFIX + from, CONTACTS_PREFIX + to),
+                    from, to, String.valueOf(System.currentTimeMillis()), String.valueOf(contactsMaxSize));
+        } catch (Exception e) {
+            log.warn("更新未读数失败: messageId={}, {}", message.getId(), e.getMessage());
+        }
+    }
+    
+    /**
+     * 清零userId与peerId会话的未读数
+     */
+    public void clear(Long userId, Long peerId) {
+        try {
+            redisTemplate.execute(READ_SCRIPT,
+                    Arrays.asList(UNREAD_PREFIX + userId, TOTAL_PREFIX + userId), String.valueOf(peerId));
+        } catch (Exception e) {
+            log.warn("清零未读数失败: userId={}, peerId={}, {}", userId, peerId, e.getMessage());
+        }
+    }
+    
+    /**
+     * 总未读数，Redis不可用时查库
+     */
+    public long totalOf(Long userId) {
+        try {
+            String total = redisTemplate.opsForValue().get(TOTAL_PREFIX + userId);
+            return total == null ? 0 : Math.max(0, Long.parseLong(total));
+        } catch (Exception e) {
+            log.warn("读取未读数失败，改为查库: userId={}, {}", userId, e.getMessage());
+            return messageMapper.countUnread(userId);
+        }
+    }
+    
+    /**
+     * 最近联系的用户，按最近消息时间倒序，只填充用户ID、最近消息时间和会话未读数
+     */
+    public List<ChatContact> contactsOf(Long userId, int limit) {
+        Set<ZSetOperations.TypedTuple<String>> contacts;
+        List<Object> unread;
+        try {
+            contacts = redisTemplate.opsForZSet().reverseRangeWithScores(CONTACTS_PREFIX + userId, 0, limit - 1);
+            if (contacts == null || contacts.isEmpty()) {
+                return new ArrayList<>();
+            }
+            List<Object> peers = new ArrayList<>(contacts.size());
+            for (ZSetOperations.TypedTuple<String> contact : contacts) {
+                peers.add(contact.getValue());
+            }
+            unread = redisTemplate.opsForHash().multiGet(UNREAD_PREFIX + userId, peers);
+        } catch (Exception e) {
+            log.warn("读取联系人失败: userId={}, {}", userId, e.getMessage());
+            throw new RuntimeException("联系人列表暂不可用，请稍后重试");
+        }
+        List<ChatContact> result = new ArrayList<>(contacts.size());
+        int i = 0;
+        for (ZSetOperations.TypedTuple<String> contact : contacts) {
+            Object count = unread.get(i++);
+            ChatContact item = new ChatContact();
+            item.setUserId(Long.valueOf(contact.getValue()));
+            if (contact.getScore() != null) {
+                item.setLastMessageTime(LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(contact.getScore().longValue()), ZoneId.systemDefault()));
+            }
+            item.setUnreadCount(count == null ? 0L : Long.parseLong(count.toString()));
+            result.add(item);
+        }
+        return result;
+    }
+    
+    /**
+     * 按数据库中的未读消息重算所有用户的未读数，并为联系人缺失的用户补齐联系人，返回有未读消息的用户数
+     * 逐个用户在重置前才读取其未读数，读和重置之间只隔一次索引查询，重算期间的发送和已读基本不会被覆盖，
+     * 个别偏差在下次重算时校正
+     */
+    public int reconcile() {
+        Set<Long> owners = new HashSet<>(collect(messageMapper::streamUnreadOwners));
+        int withUnread = owners.size();
+        // Redis中有总未读数而数据库中已没有未读消息的用户也要清零
+        owners.addAll(scanTotalOwners());
+        for (Long userId : owners) {
+            List<String> args = new ArrayList<>();
+            for (Map<String, Object> row : messageMapper.selectUnreadCounts(userId)) {
+                args.add(String.valueOf(row.get("from_user_id")));
+                args.add(String.valueOf(row.get("unread")));
+            }
+            reset(userId, args);
+        }
+        
+        rebuildMissingContacts();
+        return withUnread;
+    }
+    
+    /**
+     * 只为Redis中没有联系人记录的用户按消息表重建，Redis数据丢失或发送时更新失败后据此恢复
+     */
+    private void rebuildMissingContacts() {
+        List<Long> participants = collect(messageMapper::streamParticipants);
+        for (int from = 0; from < participants.size(); from += EXISTS_BATCH_SIZE) {
+            List<Long> batch = participants.subList(from, Math.min(from + EXISTS_BATCH_SIZE, participants.size()));
+            List<Object> exists = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Long userId : batch) {
+                    connection.exists((CONTACTS_PREFIX + userId).getBytes(StandardCharsets.UTF_8));
+                }
+                return null;
+            });
+            for (int i = 0; i < batch.size(); i++) {
+                if (!Boolean.TRUE.equals(exists.get(i))) {
+                    rebuildContacts(batch.get(i));
+                }
+            }
+        }
+    }
+    
+    private void rebuildContacts(Long userId) {
+        List<String> args = new ArrayList<>();
+        for (Map<String, Object> row : messageMapper.selectContacts(userId)) {
+            args.add(String.valueOf(row.get("peer_id")));
+            args.add(String.valueOf(((Number) row.get("last_time")).longValue()));
+        }
+        if (!args.isEmpty()) {
+            mergeContacts(userId, args);
+        }
+    }
+    
+    private List<Long> collect(Supplier<Cursor<Long>> query) {
+        return transactionTemplate.execute(status -> {
+            List<Long> userIds = new ArrayList<>();
+            try (Cursor<Long> cursor = query.get()) {
+                cursor.forEach(userIds::add);
+            } catch (IOException e) {
+                throw new RuntimeException(e.getMessage());
+            }
+            return userIds;
+        });
+    }
+    
+    private void mergeContacts(Long userId, List<String> args) {
+        List<String> argv = new ArrayList<>(args.size() + 1);
+        argv.add(String.valueOf(contactsMaxSize));
+        argv.addAll(args);
+        redisTemplate.execute(CONTACTS_SCRIPT, Collections.singletonList(CONTACTS_PREFIX + userId), argv.toArray());
+    }
+    
+    private void reset(Long userId, List<String> args) {
+        redisTemplate.execute(RESET_SCRIPT, Arrays.asList(UNREAD_PREFIX + userId, TOTAL_PREFIX + userId),
+                args.toArray());
+    }
+    
+    private List<Long> scanTotalOwners() {
+        return redisTemplate.execute((RedisCallback<List<Long>>) connection -> scan(connection));
+    }
+    
+    private List<Long> scan(RedisConnection connection) {
+        List<Long> userIds = new ArrayList<>();
+        ScanOptions options = ScanOptions.scanOptions().match(TOTAL_PREFIX + "*").count(1000).build();
+        try (org.springframework.data.redis.core.Cursor<byte[]> keys = connection.scan(options)) {
+            while (keys.hasNext()) {
+                String key = new String(keys.next(), StandardCharsets.UTF_8);
+                userIds.add(Long.valueOf(key.substring(TOTAL_PREFIX.length())));
+            }
+        }
+        return userIds;
+    }
+}
@@ -1,49 +1,43 @@
 package com.health.config;
 
+import com.health.drools.RuleModuleLoader;
+import lombok.extern.slf4j.Slf4j;
+import org.kie.api.KieBase;
 import org.kie.api.KieServices;
-import org.kie.api.builder.*;
-import org.kie.api.runtime.KieContainer;
-import org.kie.internal.io.ResourceFactory;
+import org.kie.api.builder.KieModule;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
-import org.springframework.core.io.support.ResourcePatternResolver;
 
 import java.io.IOException;
 
 /**
  * Drools规则引擎配置类
  */
+@Slf4j
 @Configuration
 public class DroolsConfig {
     
-    private static final String RULES_PATH = "drools/rules/";
-    
+    /**
+     * 优先加载构建期预编译的KieBase，不存在、与当前DRL不一致或被禁用时现场编译DRL
+     */
     @Bean
-    public KieContainer kieContainer() throws IOException {
-        KieServices kieServices = KieServices.Factory.get();
-        KieFileSystem kieFileSystem = kieServices.newKieFileSystem();
-        
-        // 加载规则文件
-        ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
-        Resource[] resources = resolver.getResources("classpath*:" + RULES_PATH + "**/*.drl");
-        
-        for (Resource resource : resources) {
-            kieFileSystem.write(ResourceFactory.newClassPathResource(
-                    RULES_PATH + resource.getFilename(), "UTF-8"));
-        }
-        
-        // 构建
-        KieBuilder kieBuilder = kieServices.newKieBuilder(kieFileSystem);
-        kieBuilder.buildAll();
+    public KieBase kieBase(@Value("${drools.prebuilt-enabled:true}") boolean prebuiltEnabled) throws IOException {
+        long start = System.currentTimeMillis();
         
-        // 检查错误
-        Results results = kieBuilder.getResults();
-        if (results.hasMessages(Message.Level.ERROR)) {
-            throw new IllegalStateException("Drools规则加载失败: " + results.getMessages());
+        String fingerprint = RuleModuleLoader.fingerprint(RuleModuleLoader.readClasspathRules());
+        KieBase kieBase = prebuiltEnabled ? RuleModuleLoader.loadPrebuilt(fingerprint) : null;
+        String source = "预编译KieBase";
+        if (kieBase == null) {
+            if (prebuiltEnabled) {
+                log.warn("预编译规则缺失或与当前DRL不一致(指纹={})，改为运行时编译", fingerprint);
+            }
+            KieModule kieModule = RuleModuleLoader.compileClasspathRules();
+            kieBase = KieServices.Factory.get().newKieContainer(kieModule.getReleaseId()).getKieBase();
+            source = "运行时编译";
         }
         
-        return kieServices.newKieContainer(kieServices.getRepository().getDefaultReleaseId());
+        log.info("Drools规则加载完成: 方式={}, 指纹={}, 耗时{}ms", source, fingerprint, System.currentTimeMillis() - start);
+        return kieBase;
     }
 }
@@ -1,5 +1,11 @@
 package com.health.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.health.security.JwtAuthenticationFilter;
+import com.health.utils.JwtUtil;
+import com.health.vo.Result;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -7,11 +13,15 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 /**
@@ -19,11 +29,24 @@ import java.util.Arrays;
  */
 @Configuration
 @EnableWebSecurity
+@RequiredArgsConstructor
 public class SecurityConfig {
     
+    private final JwtUtil jwtUtil;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${jwt.header:Authorization}")
+    private String jwtHeader;
+    
+    @Value("${jwt.prefix:Bearer}")
+    private String jwtPrefix;
+    
+    @Value("${security.password.bcrypt-strength:10}")
+    private Integer bcryptStrength;
+    
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(bcryptStrength);
     }
     
     @Bean
@@ -42,7 +65,20 @@ public class SecurityConfig {
             .authorizeRequests()
             .antMatchers("/auth/register", "/auth/login").permitAll()  // 允许注册和登录
             .antMatchers("/ws/**").permitAll()  // 允许WebSocket连接
-            .anyRequest().authenticated();  // 其他请求需要认证
+            .anyRequest().authenticated()  // 其他请求需要认证
+            .and()
+            // 未认证时返回统一格式的401
+            .exceptionHandling()
+            .authenticationEntryPoint((request, response, e) -> {
+                response.setStatus(HttpStatus.UNAUTHORIZED.value());
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+                objectMapper.writeValue(response.getWriter(), Result.error(401, "未授权访问"));
+            })
+            .and()
+            // 每个请求验证一次Token
+            .addFilterBefore(new JwtAuthenticationFilter(jwtUtil, jwtHeader, jwtPrefix.trim() + " "),
+                    UsernamePasswordAuthenticationFilter.class);
         
         return http.build();
     }
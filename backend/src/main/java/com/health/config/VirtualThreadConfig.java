@@ -0,0 +1,94 @@
+package com.health.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 虚拟线程配置，仅在virtual-threads配置文件下生效
+ * Tomcat请求处理和应用异步任务改为每任务一个虚拟线程，需要JDK 21及以上运行；
+ * 编译目标仍为Java 11，通过反射创建虚拟线程执行器
+ */
+@Slf4j
+@Configuration
+@Profile("virtual-threads")
+public class VirtualThreadConfig {
+    
+    private static final String SCHEDULER_PARALLELISM = "jdk.virtualThreadScheduler.parallelism";
+    
+    @Value("${virtual-threads.scheduler-parallelism:0}")
+    private Integer schedulerParallelism;
+    
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private Integer maximumPoolSize;
+    
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor() {
+        configureSchedulerParallelism();
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            log.info("已启用虚拟线程执行器: JDK {}", Runtime.version());
+            return executor;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("virtual-threads配置需要JDK 21及以上运行，当前JDK " + Runtime.version());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("创建虚拟线程执行器失败", e);
+        }
+    }
+    
+    /**
+     * MySQL Connector/J 8.0在网络读写时持有synchronized锁，等待数据库的虚拟线程会固定占用载体线程，
+     * 载体线程数默认等于CPU核数，连接池满负荷时全部被占住，其余虚拟线程（包括不访问数据库的请求）都无法执行。
+     * 载体线程数应调到连接池上限加CPU核数，保证连接全部在用时仍有载体线程处理其他请求。
+     * 调度器在JVM中第一个虚拟线程创建时读取该参数，此前任何组件都可能已创建过虚拟线程，运行时设置不可靠，
+     * 因此只接受启动参数-Djdk.virtualThreadScheduler.parallelism，未指定时拒绝启动，小于建议值时告警
+     */
+    private void configureSchedulerParallelism() {
+        int recommended = schedulerParallelism > 0 ? schedulerParallelism
+                : maximumPoolSize + Runtime.getRuntime().availableProcessors();
+        String configured = System.getProperty(SCHEDULER_PARALLELISM);
+        if (configured == null) {
+            throw new IllegalStateException("virtual-threads配置需要启动参数-D" + SCHEDULER_PARALLELISM
+                    + "=" + recommended + "（连接池上限加CPU核数）");
+        }
+        int parallelism;
+        try {
+            parallelism = Integer.parseInt(configured.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("启动参数" + SCHEDULER_PARALLELISM + "不是整数: " + configured);
+        }
+        if (parallelism < recommended) {
+            log.warn("虚拟线程载体线程数{}小于建议值{}，连接池满负荷时其他请求可能无法调度", parallelism, recommended);
+        }
+        log.info("虚拟线程载体线程数: {}", parallelism);
+    }
+    
+    /**
+     * Tomcat请求处理使用虚拟线程，并发上限改由连接数和数据库连接池决定
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+    
+    /**
+     * 应用异步任务执行器
+     */
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+}
@@ -0,0 +1,36 @@
+package com.health.config;
+
+import com.health.bulkhead.Bulkhead;
+import com.health.bulkhead.Bulkheads;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Spring MVC配置类
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+    
+    private final Bulkheads bulkheads;
+    
+    /**
+     * 导出的异步请求时限，0表示不限；导出耗时与数据量成正比，不套用bulk线程池的任务时限
+     */
+    @Value("${bulkhead.bulk.export-timeout-ms:0}")
+    private long exportTimeoutMs;
+    
+    /**
+     * 流式响应（导出）在bulk线程池上执行，默认时限只作用于导出；
+     * 其余异步接口返回DeferredResult，时限由各自线程池单独设置
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        Bulkhead bulk = bulkheads.bulk();
+        configurer.setTaskExecutor(bulk.asTaskExecutor());
+        configurer.setDefaultTimeout(exportTimeoutMs);
+    }
+}
@@ -1,18 +1,43 @@
 package com.health.config;
 
+import com.health.security.StompAuthChannelInterceptor;
+import com.health.websocket.OutboundFlowControl;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 /**
  * WebSocket配置类
  */
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+    private final OutboundFlowControl outboundFlowControl;
+    
+    @Value("${websocket.outbound.send-buffer-size-limit:524288}")
+    private Integer sendBufferSizeLimit;
+    
+    @Value("${websocket.outbound.send-time-limit-ms:10000}")
+    private Integer sendTimeLimitMs;
+    
+    @Value("${websocket.inbound.message-size-limit:65536}")
+    private Integer messageSizeLimit;
+    
+    @Value("${websocket.outbound.executor.pool-size:8}")
+    private Integer outboundPoolSize;
+    
+    @Value("${websocket.outbound.executor.queue-capacity:10000}")
+    private Integer outboundQueueCapacity;
+    
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws/chat")
@@ -27,4 +52,30 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // 配置客户端发送消息的前缀
         registry.setApplicationDestinationPrefixes("/app");
     }
+    
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // CONNECT时验证Token
+        registration.interceptors(stompAuthChannelInterceptor);
+    }
+    
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // 慢会话的非关键消息在进入线程池前丢弃或合并；线程池和队列有界，不随慢连接无限增长，
+        // 排满时拒绝，被拒绝的关键消息由OutboundFlowControl断开所在会话，客户端重连补发
+        registration.interceptors(outboundFlowControl);
+        registration.taskExecutor()
+                .corePoolSize(outboundPoolSize)
+                .maxPoolSize(outboundPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+    }
+    
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        // 单个会话待发送数据超过缓冲上限，或一次发送超过时间上限时断开该会话
+        registration.setSendBufferSizeLimit(sendBufferSizeLimit)
+                .setSendTimeLimit(sendTimeLimitMs)
+                .setMessageSizeLimit(messageSizeLimit)
+                .addDecoratorFactory(outboundFlowControl);
+    }
 }
@@ -0,0 +1,52 @@
+package com.health.controller;
+
+import com.health.alert.AlertReplayService;
+import com.health.dto.AlertReplayRequest;
+import com.health.entity.HealthAlert;
+import com.health.security.StompPrincipal;
+import com.health.vo.Result;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * 预警控制器，处理STOMP消息
+ * 客户端订阅/user/queue/alerts接收实时预警，重连后发送/app/alerts.replay补拉断线期间的预警
+ */
+@Controller
+@RequiredArgsConstructor
+public class AlertController {
+    
+    private final AlertReplayService alertReplayService;
+    
+    /**
+     * 重连后补发未处理的预警
+     */
+    @MessageMapping("/alerts.replay")
+    @SendToUser(value = "/queue/alerts.replay", broadcast = false)
+    public List<HealthAlert> replay(@Payload AlertReplayRequest request, Principal principal) {
+        return alertReplayService.replay(userId(principal), request.getAfterId());
+    }
+    
+    /**
+     * 处理失败时只通知当前会话
+     */
+    @MessageExceptionHandler
+    @SendToUser(value = "/queue/alerts.errors", broadcast = false)
+    public Result<Void> handleException(RuntimeException e) {
+        return Result.error(e.getMessage());
+    }
+    
+    private Long userId(Principal principal) {
+        if (principal instanceof StompPrincipal) {
+            return ((StompPrincipal) principal).getUserId();
+        }
+        throw new RuntimeException("未授权访问");
+    }
+}
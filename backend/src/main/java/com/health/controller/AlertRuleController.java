@@ -0,0 +1,84 @@
+package com.health.controller;
+
+import com.health.drools.RuleSet;
+import com.health.drools.RuleSetManager;
+import com.health.drools.RuleSetStore;
+import com.health.entity.AlertRuleSet;
+import com.health.security.SecurityUtil;
+import com.health.vo.Result;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 预警规则控制器
+ */
+@RestController
+@RequestMapping("/alert/rules")
+@RequiredArgsConstructor
+@CrossOrigin
+public class AlertRuleController {
+    
+    private final RuleSetManager ruleSetManager;
+    private final RuleSetStore ruleSetStore;
+    
+    @Value("${drools.reload.compile-timeout-ms:60000}")
+    private Long compileTimeoutMs;
+    
+    @Value("${drools.reload.upload-enabled:false}")
+    private boolean uploadEnabled;
+    
+    /**
+     * 获取当前规则集版本
+     */
+    @GetMapping
+    public Result<Map<String, Object>> getCurrentRuleSet() {
+        RuleSet ruleSet = ruleSetManager.getCurrent();
+        Map<String, Object> result = new HashMap<>();
+        result.put("version", ruleSet.getVersion());
+        result.put("fingerprint", ruleSet.getFingerprint());
+        result.put("loadedAt", ruleSet.getLoadedAt());
+        return Result.success(result);
+    }
+    
+    /**
+     * 上传规则文件替换当前规则集，编译校验通过后写入规则库，各节点从库中加载同一版本
+     * DRL可执行任意Java代码，默认关闭，开启后也仅限管理员
+     */
+    @PostMapping
+    public Result<String> uploadRules(@RequestParam("files") MultipartFile[] files) throws IOException {
+        if (!uploadEnabled) {
+            throw new RuntimeException("规则上传未开启");
+        }
+        requireAdmin();
+        
+        Map<String, byte[]> drlFiles = new TreeMap<>();
+        for (MultipartFile file : files) {
+            String filename = file.getOriginalFilename();
+            if (filename == null || !filename.endsWith(".drl")) {
+                throw new RuntimeException("只支持上传.drl规则文件");
+            }
+            drlFiles.put(filename, file.getBytes());
+        }
+        
+        Long userId = SecurityUtil.getUserId();
+        String version = ruleSetManager.reloadAndWait(drlFiles, "上传", compileTimeoutMs);
+        AlertRuleSet saved = ruleSetStore.save(version, drlFiles, "上传", userId);
+        return Result.success("规则已生效", saved.getVersion());
+    }
+    
+    /**
+     * 规则调整仅限管理员，管理员账号不能通过注册创建
+     */
+    private void requireAdmin() {
+        if (!"ADMIN".equals(SecurityUtil.getLoginUser().getRole())) {
+            throw new RuntimeException("无权修改预警规则");
+        }
+    }
+}
@@ -3,14 +3,15 @@ package com.health.controller;
 import com.health.dto.LoginRequest;
 import com.health.dto.RegisterRequest;
 import com.health.entity.User;
+import com.health.security.SecurityUtil;
 import com.health.service.AuthService;
-import com.health.utils.JwtUtil;
+import com.health.vo.BatchResult;
 import com.health.vo.Result;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
-import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -23,7 +24,6 @@ import java.util.Map;
 public class AuthController {
     
     private final AuthService authService;
-    private final JwtUtil jwtUtil;
     
     /**
      * 用户注册
@@ -34,6 +34,18 @@ public class AuthController {
         return Result.success("注册成功", null);
     }
     
+    /**
+     * 批量注册，用于整批导入患者，仅限医生
+     */
+    @PostMapping("/register/batch")
+    public Result<BatchResult> registerBatch(@RequestBody List<RegisterRequest> requests) {
+        if (!"DOCTOR".equals(SecurityUtil.getLoginUser().getRole())) {
+            throw new RuntimeException("无权批量注册用户");
+        }
+        BatchResult result = authService.registerBatch(requests);
+        return Result.success("批量注册完成", result);
+    }
+    
     /**
      * 用户登录
      */
@@ -47,8 +59,8 @@ public class AuthController {
      * 获取当前用户信息
      */
     @GetMapping("/info")
-    public Result<User> getUserInfo(HttpServletRequest request) {
-        Long userId = getUserIdFromRequest(request);
+    public Result<User> getUserInfo() {
+        Long userId = SecurityUtil.getUserId();
         User user = authService.getCurrentUser(userId);
         return Result.success(user);
     }
@@ -57,21 +69,9 @@ public class AuthController {
      * 更新用户信息
      */
     @PutMapping("/profile")
-    public Result<Void> updateProfile(@RequestBody User user, HttpServletRequest request) {
-        Long userId = getUserIdFromRequest(request);
+    public Result<Void> updateProfile(@RequestBody User user) {
+        Long userId = SecurityUtil.getUserId();
         authService.updateProfile(userId, user);
         return Result.success("更新成功", null);
     }
-    
-    /**
-     * 从请求中获取用户ID
-     */
-    private Long getUserIdFromRequest(HttpServletRequest request) {
-        String token = request.getHeader("Authorization");
-        if (token != null && token.startsWith("Bearer ")) {
-            token = token.substring(7);
-            return jwtUtil.getUserIdFromToken(token);
-        }
-        throw new RuntimeException("未授权访问");
-    }
 }
@@ -0,0 +1,61 @@
+package com.health.controller;
+
+import com.health.chat.ChatService;
+import com.health.dto.ChatReplayRequest;
+import com.health.dto.ChatSendRequest;
+import com.health.entity.Message;
+import com.health.security.StompPrincipal;
+import com.health.vo.Result;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * 聊天控制器，处理STOMP消息
+ * 客户端订阅/user/queue/chat.messages接收消息，/user/queue/chat.acks接收发送确认
+ */
+@Controller
+@RequiredArgsConstructor
+public class ChatController {
+    
+    private final ChatService chatService;
+    
+    /**
+     * 发送消息
+     */
+    @MessageMapping("/chat.send")
+    public void send(@Payload ChatSendRequest request, Principal principal) {
+        chatService.send(userId(principal), request);
+    }
+    
+    /**
+     * 重连后补发离线期间的消息
+     */
+    @MessageMapping("/chat.replay")
+    @SendToUser(value = "/queue/chat.replay", broadcast = false)
+    public List<Message> replay(@Payload ChatReplayRequest request, Principal principal) {
+        return chatService.replay(userId(principal), request.getAfterId());
+    }
+    
+    /**
+     * 处理失败时只通知当前会话
+     */
+    @MessageExceptionHandler
+    @SendToUser(value = "/queue/chat.errors", broadcast = false)
+    public Result<Void> handleException(RuntimeException e) {
+        return Result.error(e.getMessage());
+    }
+    
+    private Long userId(Principal principal) {
+        if (principal instanceof StompPrincipal) {
+            return ((StompPrincipal) principal).getUserId();
+        }
+        throw new RuntimeException("未授权访问");
+    }
+}
@@ -1,16 +1,27 @@
 package com.health.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.health.bulkhead.Bulkheads;
 import com.health.entity.HealthRecord;
+import com.health.export.HealthRecordExporter;
+import com.health.ingest.HealthRecordIngestPipeline;
+import com.health.security.SecurityUtil;
 import com.health.service.HealthRecordService;
-import com.health.utils.JwtUtil;
+import com.health.vo.BatchResult;
+import com.health.vo.CursorPage;
 import com.health.vo.Result;
+import com.health.vo.TrendData;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -24,19 +35,40 @@ import java.util.Map;
 public class HealthRecordController {
     
     private final HealthRecordService healthRecordService;
-    private final JwtUtil jwtUtil;
+    private final HealthRecordIngestPipeline ingestPipeline;
+    private final HealthRecordExporter healthRecordExporter;
+    private final Bulkheads bulkheads;
     
     /**
      * 添加健康记录
      */
     @PostMapping("/record")
-    public Result<Void> addRecord(@RequestBody HealthRecord record, HttpServletRequest request) {
-        Long userId = getUserIdFromRequest(request);
+    public Result<Void> addRecord(@RequestBody HealthRecord record) {
+        Long userId = SecurityUtil.getUserId();
         record.setUserId(userId);
+        if (ingestPipeline.isEnabled()) {
+            ingestPipeline.submit(record);
+            return Result.success("已受理", null);
+        }
         healthRecordService.addRecord(record);
         return Result.success("添加成功", null);
     }
     
+    /**
+     * 批量添加健康记录
+     */
+    @PostMapping("/records/batch")
+    public Result<BatchResult> addRecords(@RequestBody List<HealthRecord> records) {
+        Long userId = SecurityUtil.getUserId();
+        for (HealthRecord record : records) {
+            if (record != null) {
+                record.setUserId(userId);
+            }
+        }
+        BatchResult result = healthRecordService.addRecords(records);
+        return Result.success("批量添加完成", result);
+    }
+    
     /**
      * 获取健康记录详情
      */
@@ -50,24 +82,76 @@ public class HealthRecordController {
      * 分页查询健康记录
      */
     @GetMapping("/records")
-    public Result<Page<HealthRecord>> getRecordList(
+    public DeferredResult<Result<Page<HealthRecord>>> getRecordList(
             @RequestParam(defaultValue = "1") Integer pageNum,
             @RequestParam(defaultValue = "10") Integer pageSize,
             @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate) {
+        Long userId = SecurityUtil.getUserId();
+        return bulkheads.interactive().defer(() -> Result.success(
+                healthRecordService.getRecordList(userId, pageNum, pageSize, startDate, endDate)));
+    }
+    
+    /**
+     * 游标分页查询健康记录，深分页与首页代价相同
+     */
+    @GetMapping(value = "/records", params = "mode=cursor")
+    public DeferredResult<Result<CursorPage<HealthRecord>>> getRecordListByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate,
-            HttpServletRequest request) {
-        Long userId = getUserIdFromRequest(request);
-        Page<HealthRecord> page = healthRecordService.getRecordList(userId, pageNum, pageSize, startDate, endDate);
-        return Result.success(page);
+            @RequestParam(defaultValue = "false") Boolean withTotal) {
+        Long userId = SecurityUtil.getUserId();
+        return bulkheads.interactive().defer(() -> Result.success(healthRecordService.getRecordListByCursor(
+                userId, cursor, pageSize, startDate, endDate, withTotal)));
+    }
+    
+    /**
+     * 导出健康记录，支持CSV和NDJSON格式，可选gzip压缩，在bulk线程池上流式写出
+     */
+    @GetMapping("/records/export")
+    public ResponseEntity<StreamingResponseBody> exportRecords(
+            @RequestParam(defaultValue = HealthRecordExporter.FORMAT_CSV) String format,
+            @RequestParam(defaultValue = "false") Boolean gzip,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") LocalDate endDate) {
+        Long userId = SecurityUtil.getUserId();
+        boolean ndjson = HealthRecordExporter.FORMAT_NDJSON.equals(format);
+        if (!ndjson && !HealthRecordExporter.FORMAT_CSV.equals(format)) {
+            throw new RuntimeException("不支持的导出格式: " + format);
+        }
+        
+        String filename = "health-records-" + userId + (ndjson ? ".ndjson" : ".csv");
+        String contentType;
+        if (gzip) {
+            filename += ".gz";
+            contentType = "application/gzip";
+        } else {
+            contentType = ndjson ? "application/x-ndjson;charset=UTF-8" : "text/csv;charset=UTF-8";
+        }
+        
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024);
+                healthRecordExporter.export(userId, startDate, endDate, format, gzipOut);
+                gzipOut.finish();
+            } else {
+                healthRecordExporter.export(userId, startDate, endDate, format, out);
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(MediaType.parseMediaType(contentType))
+                .body(body);
     }
     
     /**
      * 更新健康记录
      */
     @PutMapping("/record/{id}")
-    public Result<Void> updateRecord(@PathVariable Long id, @RequestBody HealthRecord record, 
-                                      HttpServletRequest request) {
-        getUserIdFromRequest(request);  // 验证权限
+    public Result<Void> updateRecord(@PathVariable Long id, @RequestBody HealthRecord record) {
         record.setId(id);
         healthRecordService.updateRecord(record);
         return Result.success("更新成功", null);
@@ -77,46 +161,31 @@ public class HealthRecordController {
      * 删除健康记录
      */
     @DeleteMapping("/record/{id}")
-    public Result<Void> deleteRecord(@PathVariable Long id, HttpServletRequest request) {
-        getUserIdFromRequest(request);  // 验证权限
+    public Result<Void> deleteRecord(@PathVariable Long id) {
         healthRecordService.deleteRecord(id);
         return Result.success("删除成功", null);
     }
     
     /**
-     * 获取健康统计数据
+     * 获取健康统计数据，在analytics线程池上执行
      */
     @GetMapping("/statistics")
-    public Result<Map<String, Object>> getStatistics(
-            @RequestParam(defaultValue = "30") Integer days,
-            HttpServletRequest request) {
-        Long userId = getUserIdFromRequest(request);
-        Map<String, Object> statistics = healthRecordService.getStatistics(userId, days);
-        return Result.success(statistics);
+    public DeferredResult<Result<Map<String, Object>>> getStatistics(
+            @RequestParam(defaultValue = "30") Integer days) {
+        Long userId = SecurityUtil.getUserId();
+        return bulkheads.analytics().defer(() -> Result.success(healthRecordService.getStatistics(userId, days)));
     }
     
     /**
-     * 获取趋势数据
+     * 获取趋势数据，在analytics线程池上执行
      */
     @GetMapping("/trend")
-    public Result<List<Map<String, Object>>> getTrendData(
+    public DeferredResult<Result<TrendData>> getTrendData(
             @RequestParam String indicator,
             @RequestParam(defaultValue = "30") Integer days,
-            HttpServletRequest request) {
-        Long userId = getUserIdFromRequest(request);
-        List<Map<String, Object>> trendData = healthRecordService.getTrendData(userId, indicator, days);
-        return Result.success(trendData);
-    }
-    
-    /**
-     * 从请求中获取用户ID
-     */
-    private Long getUserIdFromRequest(HttpServletRequest request) {
-        String token = request.getHeader("Authorization");
-        if (token != null && token.startsWith("Bearer ")) {
-            token = token.substring(7);
-            return jwtUtil.getUserIdFromToken(token);
-        }
-        throw new RuntimeException("未授权访问");
+            @RequestParam(defaultValue = "1000") Integer maxPoints) {
+        Long userId = SecurityUtil.getUserId();
+        return bulkheads.analytics().defer(() -> Result.success(
+                healthRecordService.getTrendData(userId, indicator, days, maxPoints)));
     }
 }
@@ -0,0 +1,68 @@
+package com.health.controller;
+
+import com.health.bulkhead.Bulkheads;
+import com.health.chat.ChatService;
+import com.health.entity.Message;
+import com.health.security.SecurityUtil;
+import com.health.vo.ChatContact;
+import com.health.vo.CursorPage;
+import com.health.vo.Result;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+
+/**
+ * 聊天记录控制器，消息收发走WebSocket
+ */
+@RestController
+@RequestMapping("/chat")
+@RequiredArgsConstructor
+@CrossOrigin
+public class MessageController {
+    
+    private final ChatService chatService;
+    private final Bulkheads bulkheads;
+    
+    /**
+     * 联系人列表，含会话未读数
+     */
+    @GetMapping("/contacts")
+    public Result<List<ChatContact>> getContacts(@RequestParam(defaultValue = "50") Integer limit) {
+        Long userId = SecurityUtil.getUserId();
+        return Result.success(chatService.contacts(userId, limit));
+    }
+    
+    /**
+     * 总未读数
+     */
+    @GetMapping("/unread")
+    public Result<Long> getUnreadTotal() {
+        Long userId = SecurityUtil.getUserId();
+        return Result.success(chatService.unreadTotal(userId));
+    }
+    
+    /**
+     * 与某个用户的会话历史，游标分页，从最新一条开始
+     */
+    @GetMapping("/conversations/{peerId}/messages")
+    public DeferredResult<Result<CursorPage<Message>>> getConversation(
+            @PathVariable Long peerId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") Integer pageSize) {
+        Long userId = SecurityUtil.getUserId();
+        return bulkheads.interactive().defer(() -> Result.success(
+                chatService.history(userId, peerId, cursor, pageSize)));
+    }
+    
+    /**
+     * 将与某个用户的会话标记为已读
+     */
+    @PostMapping("/conversations/{peerId}/read")
+    public Result<Void> markRead(@PathVariable Long peerId) {
+        Long userId = SecurityUtil.getUserId();
+        chatService.markRead(userId, peerId);
+        return Result.success("已读", null);
+    }
+}
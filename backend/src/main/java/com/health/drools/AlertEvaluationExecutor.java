@@ -0,0 +1,233 @@
+package com.health.drools;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 预警规则执行通道
+ * 按用户ID哈希分到固定的单线程通道，同一用户的记录按提交顺序执行，不同用户分散到多核并行，
+ * 每个通道独占一个规则会话；通道排满时由独立的有界溢出线程池接手，提交方线程不等待
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AlertEvaluationExecutor implements SmartLifecycle {
+    
+    private final RuleSetManager ruleSetManager;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${drools.lanes.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${drools.lanes.count:0}")
+    private Integer laneCount;
+    
+    @Value("${drools.lanes.queue-capacity:10000}")
+    private Integer queueCapacity;
+    
+    @Value("${drools.lanes.submit-timeout-ms:1000}")
+    private Long submitTimeoutMs;
+    
+    @Value("${drools.lanes.overflow-threads:2}")
+    private Integer overflowThreads;
+    
+    @Value("${drools.lanes.overflow-queue-capacity:1000}")
+    private Integer overflowQueueCapacity;
+    
+    @Value("${drools.lanes.shutdown-timeout-ms:30000}")
+    private Long shutdownTimeoutMs;
+    
+    @Value("${drools.session-acquire-timeout-ms:1000}")
+    private Long acquireTimeoutMs;
+    
+    private Lane[] lanes;
+    private ThreadPoolExecutor overflowExecutor;
+    private Counter rejected;
+    private volatile boolean running;
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * 提交到用户所属通道，提交方线程不阻塞（可能是请求线程上的afterCommit回调）。
+     * 通道已满时交给溢出线程池，在超时时间内等待通道空位，仍无空位时用临时规则会话执行，
+     * 以牺牲该用户的执行顺序换取预警不丢失；溢出线程池也排满时任务以异常结束
+     */
+    public <T> CompletableFuture<T> submit(Long userId, Function<LaneSession, T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (!running) {
+            runWithTemporarySession(task, future);
+            return future;
+        }
+        Lane lane = lanes[Math.floorMod(Long.hashCode(userId == null ? 0L : userId), lanes.length)];
+        Runnable job = () -> {
+            try {
+                future.complete(task.apply(lane.session));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        };
+        if (lane.queue.offer(job)) {
+            return future;
+        }
+        try {
+            overflowExecutor.execute(() -> {
+                try {
+                    if (lane.queue.offer(job, submitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                lane.overflow.increment();
+                log.warn("预警执行通道{}已满，改用临时会话执行: userId={}", lane.index, userId);
+                runWithTemporarySession(task, future);
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.error("预警执行通道{}及溢出线程池均已满，任务被拒绝: userId={}", lane.index, userId);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+    
+    /**
+     * 使用临时规则会话在当前线程执行
+     */
+    private <T> void runWithTemporarySession(Function<LaneSession, T> task, CompletableFuture<T> future) {
+        try (LaneSession session = new LaneSession(ruleSetManager, acquireTimeoutMs)) {
+            future.complete(task.apply(session));
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+    
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        int count = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        lanes = new Lane[count];
+        for (int i = 0; i < count; i++) {
+            lanes[i] = new Lane(i);
+        }
+        AtomicInteger overflowIndex = new AtomicInteger();
+        overflowExecutor = new ThreadPoolExecutor(overflowThreads, overflowThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(overflowQueueCapacity), r -> {
+                    Thread t = new Thread(r, "alert-lane-overflow-" + overflowIndex.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("health.alert.lane.overflow.queue", overflowExecutor, e -> e.getQueue().size())
+             .register(meterRegistry);
+        rejected = meterRegistry.counter("health.alert.lane.rejected");
+        running = true;
+        for (Lane lane : lanes) {
+            lane.thread.start();
+        }
+        log.info("预警执行通道已启用: lanes={}, queueCapacity={}", count, queueCapacity);
+    }
+    
+    /**
+     * 停止接收新任务，各通道执行完已排队的任务后退出
+     */
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        long deadline = System.currentTimeMillis() + shutdownTimeoutMs;
+        // 溢出任务可能还要放回通道，先排空溢出线程池
+        overflowExecutor.shutdown();
+        try {
+            if (!overflowExecutor.awaitTermination(Math.max(1, deadline - System.currentTimeMillis()),
+                    TimeUnit.MILLISECONDS)) {
+                log.warn("预警溢出线程池未在超时前排空，剩余{}个任务", overflowExecutor.getQueue().size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Lane lane : lanes) {
+            try {
+                lane.thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (Lane lane : lanes) {
+            if (lane.thread.isAlive()) {
+                log.warn("预警执行通道{}未在超时前排空，剩余{}个任务", lane.index, lane.queue.size());
+                lane.thread.interrupt();
+            }
+        }
+        log.info("预警执行通道已停止");
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * 在健康记录写入管道之后停止，管道排空时产生的预警任务仍能执行完
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 4096;
+    }
+    
+    private class Lane {
+        
+        private final int index;
+        private final BlockingQueue<Runnable> queue = new LinkedBlockingQueue<>(queueCapacity);
+        private final LaneSession session = new LaneSession(ruleSetManager, acquireTimeoutMs);
+        private final Counter overflow;
+        private final Thread thread;
+        
+        private Lane(int index) {
+            this.index = index;
+            String lane = String.valueOf(index);
+            Gauge.builder("health.alert.lane.queue", queue, BlockingQueue::size)
+                 .tag("lane", lane)
+                 .register(meterRegistry);
+            this.overflow = meterRegistry.counter("health.alert.lane.overflow", "lane", lane);
+            this.thread = new Thread(this::runLoop, "alert-lane-" + index);
+            this.thread.setDaemon(true);
+        }
+        
+        private void runLoop() {
+            try {
+                while (running || !queue.isEmpty()) {
+                    Runnable job = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (job != null) {
+                        job.run();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                session.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.health.drools;
+
+import com.health.entity.HealthAlert;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 预警规则执行器
+ */
+public interface AlertRuleEvaluator extends AutoCloseable {
+    
+    /**
+     * 将一组事实插入同一会话并触发规则，返回规则产生的预警
+     */
+    List<HealthAlert> evaluate(Collection<?> facts);
+    
+    /**
+     * 释放执行器持有的会话
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -1,52 +1,221 @@
 package com.health.drools;
 
+import com.health.alert.AlertPushService;
+import com.health.alert.AlertSuppressor;
+import com.health.drools.cep.TemporalAlertEngine;
 import com.health.entity.HealthAlert;
 import com.health.entity.HealthRecord;
 import com.health.mapper.HealthAlertMapper;
 import lombok.RequiredArgsConstructor;
-import org.kie.api.runtime.KieContainer;
-import org.kie.api.runtime.KieSession;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
 
 /**
  * 预警规则服务
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AlertRuleService {
     
-    private final KieContainer kieContainer;
+    private final RuleSetManager ruleSetManager;
+    private final TemporalAlertEngine temporalAlertEngine;
+    private final AlertSuppressor alertSuppressor;
+    private final AlertPushService alertPushService;
+    private final AlertEvaluationExecutor alertEvaluationExecutor;
     private final HealthAlertMapper healthAlertMapper;
+    private final PlatformTransactionManager transactionManager;
+    
+    @Value("${drools.alert-insert-chunk-size:500}")
+    private Integer alertInsertChunkSize;
+    
+    private TransactionTemplate requiresNew;
+    
+    @PostConstruct
+    public void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
     
     /**
      * 执行健康预警规则检查
      */
     public List<HealthAlert> executeHealthAlertRules(HealthRecord record) {
-        KieSession kieSession = kieContainer.newKieSession();
-        List<HealthAlert> alerts = new ArrayList<>();
+        // 规则产生的预警，包括单条记录规则和时序规则
+        List<HealthRecord> records = Collections.singletonList(record);
+        List<HealthAlert> fired = new ArrayList<>(ruleSetManager.evaluate(records));
+        fired.addAll(temporalAlertEngine.process(records));
+        
+        // 去除静默期内的重复预警
+        ToLongFunction<HealthAlert> occurredAt = occurredAt(records);
+        List<HealthAlert> alerts = alertSuppressor.filter(fired, occurredAt);
+        
+        // 保存预警到数据库
+        saveAlerts(alerts, occurredAt, () -> alerts.forEach(healthAlertMapper::insert));
+        alertPushService.publish(alerts);
+        
+        return alerts;
+    }
+    
+    /**
+     * 批量执行健康预警规则检查
+     * 所有记录插入同一会话只触发一次，预警批量写入，返回按健康记录ID分组的预警
+     */
+    public Map<Long, List<HealthAlert>> executeHealthAlertRules(List<HealthRecord> records) {
+        if (records == null || records.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        return evaluateAndSave(records, ruleSetManager::evaluate);
+    }
+    
+    /**
+     * 异步执行健康预警规则检查，不占用请求线程
+     * 记录按用户分到执行通道，同一用户按提交顺序执行；存在事务时在提交后才提交到通道。
+     * 每个用户的评估和预警写入在独立的新事务中进行，不依赖提交方afterCommit时已结束的事务
+     */
+    public CompletableFuture<Map<Long, List<HealthAlert>>> submitHealthAlertRules(List<HealthRecord> records) {
+        if (records == null || records.isEmpty()) {
+            return CompletableFuture.completedFuture(new LinkedHashMap<>());
+        }
+        if (!alertEvaluationExecutor.isEnabled()) {
+            return CompletableFuture.completedFuture(executeHealthAlertRules(records));
+        }
+        
+        List<HealthRecord> snapshot = new ArrayList<>(records);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return dispatch(snapshot);
+        }
+        CompletableFuture<Map<Long, List<HealthAlert>>> result = new CompletableFuture<>();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatch(snapshot).whenComplete((alerts, e) -> {
+                    if (e != null) {
+                        result.completeExceptionally(e);
+                    } else {
+                        result.complete(alerts);
+                    }
+                });
+            }
+        });
+        return result;
+    }
+    
+    private CompletableFuture<Map<Long, List<HealthAlert>>> dispatch(List<HealthRecord> records) {
+        Map<Long, List<HealthRecord>> byUser = records.stream()
+                .collect(Collectors.groupingBy(HealthRecord::getUserId, LinkedHashMap::new, Collectors.toList()));
         
+        List<CompletableFuture<Map<Long, List<HealthAlert>>>> futures = new ArrayList<>(byUser.size());
+        byUser.forEach((userId, userRecords) -> futures.add(
+                alertEvaluationExecutor.submit(userId, lane -> requiresNew.execute(
+                                status -> evaluateAndSave(userRecords, lane::evaluate)))
+                        .whenComplete((alerts, e) -> {
+                            if (e != null) {
+                                log.error("用户{}的预警规则执行失败，涉及{}条健康记录", userId, userRecords.size(), e);
+                            }
+                        })));
+        
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(v -> {
+            Map<Long, List<HealthAlert>> alertsByRecord = new LinkedHashMap<>();
+            futures.forEach(future -> alertsByRecord.putAll(future.join()));
+            return alertsByRecord;
+        });
+    }
+    
+    private Map<Long, List<HealthAlert>> evaluateAndSave(List<HealthRecord> records,
+                                                         Function<List<HealthRecord>, List<HealthAlert>> evaluator) {
+        List<HealthAlert> fired = new ArrayList<>(evaluator.apply(records));
+        fired.addAll(temporalAlertEngine.process(records));
+        ToLongFunction<HealthAlert> occurredAt = occurredAt(records);
+        List<HealthAlert> alerts = alertSuppressor.filter(fired, occurredAt);
+        
+        saveAlerts(alerts, occurredAt, () -> {
+            for (int from = 0; from < alerts.size(); from += alertInsertChunkSize) {
+                int to = Math.min(from + alertInsertChunkSize, alerts.size());
+                healthAlertMapper.insertBatch(alerts.subList(from, to));
+            }
+        });
+        alertPushService.publish(alerts);
+        
+        Map<Long, List<HealthAlert>> alertsByRecord = new LinkedHashMap<>();
+        for (HealthAlert alert : alerts) {
+            alertsByRecord.computeIfAbsent(alert.getHealthRecordId(), k -> new ArrayList<>()).add(alert);
+        }
+        return alertsByRecord;
+    }
+    
+    /**
+     * 保存放行的预警；保存失败或所在事务回滚时撤销登记的静默期，避免预警未入库却抑制后续预警
+     */
+    private void saveAlerts(List<HealthAlert> alerts, ToLongFunction<HealthAlert> occurredAt, Runnable insert) {
+        if (alerts.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        alertSuppressor.release(alerts, occurredAt);
+                    }
+                }
+            });
+            insert.run();
+            return;
+        }
         try {
-            // 插入健康记录事实
-            kieSession.insert(record);
-            
-            // 设置全局变量收集预警
-            kieSession.setGlobal("alerts", alerts);
-            
-            // 触发规则
-            kieSession.fireAllRules();
-            
-            // 保存预警到数据库
-            for (HealthAlert alert : alerts) {
-                healthAlertMapper.insert(alert);
+            insert.run();
+        } catch (RuntimeException e) {
+            alertSuppressor.release(alerts, occurredAt);
+            throw e;
+        }
+    }
+    
+    /**
+     * 预警的发生时刻取对应健康记录的测量时刻，静默期据此计算而不是按处理时间
+     */
+    private ToLongFunction<HealthAlert> occurredAt(List<HealthRecord> records) {
+        Map<Long, Long> recordTimes = new HashMap<>();
+        for (HealthRecord record : records) {
+            if (record.getId() != null && record.getRecordDate() != null) {
+                recordTimes.put(record.getId(), recordTimeOf(record));
             }
-            
-        } finally {
-            kieSession.dispose();
         }
-        
-        return alerts;
+        long now = System.currentTimeMillis();
+        return alert -> recordTimes.getOrDefault(alert.getHealthRecordId(), now);
+    }
+    
+    private long recordTimeOf(HealthRecord record) {
+        LocalDateTime time;
+        if (record.getRecordTime() != null) {
+            time = record.getRecordDate().atTime(record.getRecordTime());
+        } else if (record.getRecordDate().equals(LocalDate.now())) {
+            time = LocalDateTime.now();
+        } else {
+            time = record.getRecordDate().atTime(LocalTime.NOON);
+        }
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
 }
@@ -0,0 +1,56 @@
+package com.health.drools;
+
+import com.health.entity.HealthAlert;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 执行通道独占的规则会话
+ * 通道持有所用的规则集版本，规则集切换后在下一次执行时重建会话并释放旧版本
+ */
+public class LaneSession implements AutoCloseable {
+    
+    private final RuleSetManager ruleSetManager;
+    private final long acquireTimeoutMs;
+    
+    private RuleSet ruleSet;
+    private AlertRuleEvaluator evaluator;
+    
+    LaneSession(RuleSetManager ruleSetManager, long acquireTimeoutMs) {
+        this.ruleSetManager = ruleSetManager;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+    
+    /**
+     * 只能由所属通道线程调用
+     */
+    public List<HealthAlert> evaluate(Collection<?> facts) {
+        if (ruleSet != ruleSetManager.getCurrent()) {
+            rebind();
+        }
+        List<HealthAlert> alerts = evaluator.evaluate(facts);
+        for (HealthAlert alert : alerts) {
+            alert.setRuleVersion(ruleSet.getVersion());
+        }
+        return alerts;
+    }
+    
+    @Override
+    public void close() {
+        if (ruleSet == null) {
+            return;
+        }
+        evaluator.close();
+        ruleSet.exit();
+        ruleSet = null;
+        evaluator = null;
+    }
+    
+    private void rebind() {
+        close();
+        RuleSet next = ruleSetManager.acquire();
+        evaluator = new PooledAlertRuleEvaluator(next.getKieBase(), 1, acquireTimeoutMs);
+        ruleSet = next;
+    }
+}
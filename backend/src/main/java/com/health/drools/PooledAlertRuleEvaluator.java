@@ -0,0 +1,92 @@
+package com.health.drools;
+
+import com.health.entity.HealthAlert;
+import lombok.extern.slf4j.Slf4j;
+import org.kie.api.KieBase;
+import org.kie.api.runtime.ClassObjectFilter;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于有状态会话池的规则执行器
+ * 会话预先创建，用完后清空工作内存归还，池满时借用方等待
+ */
+@Slf4j
+public class PooledAlertRuleEvaluator implements AlertRuleEvaluator {
+    
+    private final KieBase kieBase;
+    private final BlockingQueue<KieSession> pool;
+    private final long acquireTimeoutMs;
+    
+    public PooledAlertRuleEvaluator(KieBase kieBase, int poolSize, long acquireTimeoutMs) {
+        this.kieBase = kieBase;
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        for (int i = 0; i < poolSize; i++) {
+            pool.add(kieBase.newKieSession());
+        }
+    }
+    
+    @Override
+    public List<HealthAlert> evaluate(Collection<?> facts) {
+        KieSession session = acquire();
+        try {
+            for (Object fact : facts) {
+                session.insert(fact);
+            }
+            session.fireAllRules();
+            
+            List<HealthAlert> alerts = new ArrayList<>();
+            for (Object alert : session.getObjects(new ClassObjectFilter(HealthAlert.class))) {
+                alerts.add((HealthAlert) alert);
+            }
+            return alerts;
+        } finally {
+            release(session);
+        }
+    }
+    
+    @Override
+    public void close() {
+        KieSession session;
+        while ((session = pool.poll()) != null) {
+            session.dispose();
+        }
+    }
+    
+    private KieSession acquire() {
+        try {
+            KieSession session = pool.poll(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+            if (session == null) {
+                throw new RuntimeException("规则引擎繁忙，请稍后重试");
+            }
+            return session;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("规则执行被中断");
+        }
+    }
+    
+    /**
+     * 清空工作内存后归还，清理失败时换一个新会话，保证池大小不变
+     */
+    private void release(KieSession session) {
+        try {
+            for (FactHandle handle : new ArrayList<>(session.<FactHandle>getFactHandles())) {
+                session.delete(handle);
+            }
+        } catch (RuntimeException e) {
+            log.warn("规则会话重置失败，重新创建会话", e);
+            session.dispose();
+            session = kieBase.newKieSession();
+        }
+        pool.offer(session);
+    }
+}
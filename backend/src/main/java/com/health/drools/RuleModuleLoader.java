@@ -0,0 +1,172 @@
+package com.health.drools;
+
+import org.drools.core.common.DroolsObjectInputStream;
+import org.drools.core.common.DroolsObjectOutputStream;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieBuilder;
+import org.kie.api.builder.KieFileSystem;
+import org.kie.api.builder.KieModule;
+import org.kie.api.builder.Message;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.builder.Results;
+import org.kie.api.io.ResourceType;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 规则模块加载器
+ * 构建期将DRL编译为KieBase并序列化随应用打包，其中已包含编译好的规则类，运行时反序列化即可使用；
+ * 预编译产物缺失或与classpath下DRL指纹不一致时回退为现场编译
+ */
+public final class RuleModuleLoader {
+    
+    public static final String RULES_PATH = "drools/rules/";
+    
+    public static final String PREBUILT_KBASE = "drools/prebuilt/health-alert-rules.kbase";
+    
+    public static final String GROUP_ID = "com.health";
+    
+    public static final String ARTIFACT_ID = "health-alert-rules";
+    
+    public static final ReleaseId RELEASE_ID =
+            KieServices.Factory.get().newReleaseId(GROUP_ID, ARTIFACT_ID, "1.0.0");
+    
+    private RuleModuleLoader() {
+    }
+    
+    /**
+     * 编译classpath下的全部DRL，注册到KieRepository
+     */
+    public static KieModule compileClasspathRules() throws IOException {
+        return compile(RELEASE_ID, readClasspathRules());
+    }
+    
+    /**
+     * 读取classpath下的全部DRL，按文件名排序
+     */
+    public static Map<String, byte[]> readClasspathRules() throws IOException {
+        ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        Resource[] resources = resolver.getResources("classpath*:" + RULES_PATH + "**/*.drl");
+        
+        Map<String, byte[]> drlFiles = new TreeMap<>();
+        for (Resource resource : resources) {
+            try (InputStream in = resource.getInputStream()) {
+                drlFiles.put(resource.getFilename(), StreamUtils.copyToByteArray(in));
+            }
+        }
+        return drlFiles;
+    }
+    
+    /**
+     * 以指定版本编译一组DRL，注册到KieRepository，存在编译错误时抛出异常
+     *
+     * @param drlFiles 文件名到DRL内容的映射
+     */
+    public static KieModule compile(ReleaseId releaseId, Map<String, byte[]> drlFiles) {
+        KieServices kieServices = KieServices.Factory.get();
+        KieFileSystem kieFileSystem = kieServices.newKieFileSystem();
+        kieFileSystem.generateAndWritePomXML(releaseId);
+        
+        // 加载规则文件，显式按UTF-8解码，不受JVM默认编码影响
+        for (Map.Entry<String, byte[]> drl : drlFiles.entrySet()) {
+            String path = "src/main/resources/" + RULES_PATH + drl.getKey();
+            kieFileSystem.write(kieServices.getResources().newByteArrayResource(drl.getValue(), "UTF-8")
+                    .setSourcePath(path)
+                    .setResourceType(ResourceType.DRL));
+        }
+        
+        // 构建
+        KieBuilder kieBuilder = kieServices.newKieBuilder(kieFileSystem);
+        kieBuilder.buildAll();
+        
+        // 检查错误
+        Results results = kieBuilder.getResults();
+        if (results.hasMessages(Message.Level.ERROR)) {
+            throw new IllegalStateException("Drools规则加载失败: " + results.getMessages());
+        }
+        
+        return kieBuilder.getKieModule();
+    }
+    
+    /**
+     * 计算一组DRL的内容指纹，用于识别规则集是否变化
+     */
+    public static String fingerprint(Map<String, byte[]> drlFiles) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Map.Entry<String, byte[]> drl : new TreeMap<>(drlFiles).entrySet()) {
+                digest.update(drl.getKey().getBytes(StandardCharsets.UTF_8));
+                digest.update(drl.getValue());
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.substring(0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * 加载classpath中的预编译KieBase，不存在或指纹与当前DRL不一致时返回null
+     *
+     * @param fingerprint classpath下DRL的内容指纹
+     */
+    public static KieBase loadPrebuilt(String fingerprint) throws IOException {
+        ClassPathResource prebuilt = new ClassPathResource(PREBUILT_KBASE);
+        if (!prebuilt.exists()) {
+            return null;
+        }
+        try (ObjectInputStream in = new DroolsObjectInputStream(prebuilt.getInputStream(),
+                RuleModuleLoader.class.getClassLoader())) {
+            if (!fingerprint.equals(in.readUTF())) {
+                return null;
+            }
+            return (KieBase) in.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("预编译规则反序列化失败", e);
+        }
+    }
+    
+    /**
+     * 构建期入口，由Maven在process-classes阶段调用
+     *
+     * @param args args[0]为编译输出目录，KieBase写入其下的PREBUILT_KBASE路径，文件头记录DRL指纹
+     */
+    public static void main(String[] args) throws IOException {
+        long start = System.currentTimeMillis();
+        String fingerprint = fingerprint(readClasspathRules());
+        KieModule kieModule = compileClasspathRules();
+        KieBase kieBase = KieServices.Factory.get().newKieContainer(kieModule.getReleaseId()).getKieBase();
+        
+        Path target = Paths.get(args[0]).resolve(PREBUILT_KBASE);
+        Files.createDirectories(target.getParent());
+        try (OutputStream file = Files.newOutputStream(target);
+             ObjectOutputStream out = new DroolsObjectOutputStream(file)) {
+            out.writeUTF(fingerprint);
+            out.writeObject(kieBase);
+        }
+        
+        System.out.printf("预编译规则已生成: %s (指纹=%s, %d bytes, %dms)%n",
+                target, fingerprint, Files.size(target), System.currentTimeMillis() - start);
+    }
+}
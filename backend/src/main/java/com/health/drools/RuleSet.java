@@ -0,0 +1,76 @@
+package com.health.drools;
+
+import lombok.Getter;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.runtime.KieContainer;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一个已编译的规则集版本
+ * 被替换后等待进行中的规则执行全部结束再释放资源
+ */
+@Getter
+public class RuleSet {
+    
+    private final String version;
+    private final String fingerprint;
+    private final LocalDateTime loadedAt;
+    private final KieBase kieBase;
+    /**
+     * 内置规则集直接使用启动时加载的KieBase，没有对应容器
+     */
+    private final KieContainer kieContainer;
+    private final AlertRuleEvaluator evaluator;
+    
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile boolean retired;
+    
+    public RuleSet(String version, String fingerprint, KieBase kieBase, KieContainer kieContainer,
+                   AlertRuleEvaluator evaluator) {
+        this.version = version;
+        this.fingerprint = fingerprint;
+        this.loadedAt = LocalDateTime.now();
+        this.kieBase = kieBase;
+        this.kieContainer = kieContainer;
+        this.evaluator = evaluator;
+    }
+    
+    void enter() {
+        inFlight.incrementAndGet();
+    }
+    
+    void exit() {
+        if (inFlight.decrementAndGet() == 0 && retired) {
+            close();
+        }
+    }
+    
+    /**
+     * 标记为已替换，没有进行中的执行时立即释放
+     */
+    void retire() {
+        retired = true;
+        if (inFlight.get() == 0) {
+            close();
+        }
+    }
+    
+    /**
+     * 释放会话和容器，并从KieRepository移除对应模块，只执行一次
+     */
+    void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        evaluator.close();
+        if (kieContainer != null) {
+            kieContainer.dispose();
+            KieServices.Factory.get().getRepository().removeKieModule(kieContainer.getReleaseId());
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.health.drools;
+
+import com.health.entity.HealthAlert;
+import com.health.entity.HealthRecord;
+import lombok.extern.slf4j.Slf4j;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.runtime.KieContainer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 规则集管理器
+ * 新规则集在独立线程上编译、校验后原子替换，进行中的执行继续使用旧版本
+ */
+@Slf4j
+@Component
+public class RuleSetManager implements DisposableBean {
+    
+    private static final DateTimeFormatter VERSION_TIME = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    
+    private final AtomicReference<RuleSet> current = new AtomicReference<>();
+    private final ExecutorService reloadExecutor;
+    private final String sessionMode;
+    private final Integer poolSize;
+    private final Long acquireTimeoutMs;
+    
+    private volatile String lastFailedFingerprint;
+    
+    public RuleSetManager(KieBase kieBase,
+                          @Value("${drools.session-mode:stateless}") String sessionMode,
+                          @Value("${drools.session-pool-size:8}") Integer poolSize,
+                          @Value("${drools.session-acquire-timeout-ms:1000}") Long acquireTimeoutMs) throws IOException {
+        this.sessionMode = sessionMode;
+        this.poolSize = poolSize;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.reloadExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "rule-reloader");
+            t.setDaemon(true);
+            return t;
+        });
+        
+        String fingerprint = RuleModuleLoader.fingerprint(RuleModuleLoader.readClasspathRules());
+        current.set(new RuleSet("builtin-" + fingerprint, fingerprint, kieBase, null, newEvaluator(kieBase)));
+    }
+    
+    /**
+     * 使用当前版本规则集执行规则，预警上记录产生它的规则集版本
+     */
+    public List<HealthAlert> evaluate(Collection<?> facts) {
+        RuleSet ruleSet = acquire();
+        try {
+            List<HealthAlert> alerts = ruleSet.getEvaluator().evaluate(facts);
+            for (HealthAlert alert : alerts) {
+                alert.setRuleVersion(ruleSet.getVersion());
+            }
+            return alerts;
+        } finally {
+            ruleSet.exit();
+        }
+    }
+    
+    public RuleSet getCurrent() {
+        return current.get();
+    }
+    
+    /**
+     * 提交规则集替换任务，在重载线程上编译执行
+     */
+    public Future<String> reload(Map<String, byte[]> drlFiles, String source) {
+        return reload(drlFiles, source, null);
+    }
+    
+    /**
+     * 按指定版本号重载，从规则库加载时各节点使用上传时生成的同一版本号
+     */
+    public Future<String> reload(Map<String, byte[]> drlFiles, String source, String version) {
+        return reloadExecutor.submit(() -> doReload(drlFiles, source, version));
+    }
+    
+    /**
+     * 替换规则集并等待结果，编译或校验失败时抛出异常，当前版本不受影响
+     */
+    public String reloadAndWait(Map<String, byte[]> drlFiles, String source, long timeoutMs) {
+        try {
+            return reload(drlFiles, source).get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            throw new RuntimeException("规则编译超时");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("规则重载被中断");
+        }
+    }
+    
+    /**
+     * 规则内容与当前版本或上次失败的版本相同时直接跳过
+     */
+    public boolean isKnownFingerprint(String fingerprint) {
+        return fingerprint.equals(current.get().getFingerprint()) || fingerprint.equals(lastFailedFingerprint);
+    }
+    
+    @Override
+    public void destroy() {
+        reloadExecutor.shutdownNow();
+        current.get().retire();
+    }
+    
+    private String doReload(Map<String, byte[]> drlFiles, String source, String presetVersion) {
+        if (drlFiles.isEmpty()) {
+            throw new IllegalArgumentException("规则文件不能为空");
+        }
+        String fingerprint = RuleModuleLoader.fingerprint(drlFiles);
+        RuleSet previous = current.get();
+        if (fingerprint.equals(previous.getFingerprint())) {
+            return previous.getVersion();
+        }
+        
+        long start = System.currentTimeMillis();
+        String version = presetVersion != null ? presetVersion
+                : LocalDateTime.now().format(VERSION_TIME) + "-" + fingerprint;
+        KieServices kieServices = KieServices.Factory.get();
+        ReleaseId releaseId = kieServices.newReleaseId(RuleModuleLoader.GROUP_ID, RuleModuleLoader.ARTIFACT_ID, version);
+        
+        KieContainer kieContainer = null;
+        try {
+            RuleModuleLoader.compile(releaseId, drlFiles);
+            kieContainer = kieServices.newKieContainer(releaseId);
+            KieBase kieBase = kieContainer.getKieBase();
+            validate(kieBase);
+            
+            RuleSet next = new RuleSet(version, fingerprint, kieBase, kieContainer, newEvaluator(kieBase));
+            previous = current.getAndSet(next);
+            previous.retire();
+        } catch (RuntimeException e) {
+            lastFailedFingerprint = fingerprint;
+            if (kieContainer != null) {
+                kieContainer.dispose();
+            }
+            kieServices.getRepository().removeKieModule(releaseId);
+            log.error("规则集重载失败: 来源={}, 指纹={}", source, fingerprint, e);
+            throw e;
+        }
+        
+        log.info("规则集已切换: 来源={}, {} -> {}, 耗时{}ms",
+                source, previous.getVersion(), version, System.currentTimeMillis() - start);
+        return version;
+    }
+    
+    /**
+     * 切换前用典型数据试运行一次，确保规则执行不抛异常
+     */
+    private void validate(KieBase kieBase) {
+        List<HealthRecord> samples = new ArrayList<>();
+        samples.add(sampleRecord(120, 80, 72, "5.5"));
+        samples.add(sampleRecord(185, 115, 110, "8.0"));
+        samples.add(sampleRecord(85, 55, 50, "3.5"));
+        new StatelessAlertRuleEvaluator(kieBase).evaluate(samples);
+    }
+    
+    private HealthRecord sampleRecord(int systolic, int diastolic, int heartRate, String bloodSugar) {
+        HealthRecord record = new HealthRecord();
+        record.setId(0L);
+        record.setUserId(0L);
+        record.setRecordDate(LocalDate.now());
+        record.setSystolicPressure(systolic);
+        record.setDiastolicPressure(diastolic);
+        record.setHeartRate(heartRate);
+        record.setBloodSugar(new BigDecimal(bloodSugar));
+        return record;
+    }
+    
+    /**
+     * 取得当前规则集并计数，调用方用完后需调用exit
+     */
+    RuleSet acquire() {
+        while (true) {
+            RuleSet ruleSet = current.get();
+            ruleSet.enter();
+            // 计数后再确认仍是当前版本，避免使用刚被替换并释放的规则集
+            if (ruleSet == current.get()) {
+                return ruleSet;
+            }
+            ruleSet.exit();
+        }
+    }
+    
+    private AlertRuleEvaluator newEvaluator(KieBase kieBase) {
+        if ("pooled".equals(sessionMode)) {
+            return new PooledAlertRuleEvaluator(kieBase, poolSize, acquireTimeoutMs);
+        }
+        return new StatelessAlertRuleEvaluator(kieBase);
+    }
+}
@@ -0,0 +1,77 @@
+package com.health.drools;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.health.entity.AlertRuleSet;
+import com.health.mapper.AlertRuleSetMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 上传规则集的持久化存储
+ * 规则集连同版本号写入数据库，各节点从库中加载同一版本，重启后仍然生效
+ */
+@Component
+@RequiredArgsConstructor
+public class RuleSetStore {
+    
+    private final AlertRuleSetMapper alertRuleSetMapper;
+    private final ObjectMapper objectMapper;
+    
+    /**
+     * 保存已编译校验通过的规则集
+     */
+    public AlertRuleSet save(String version, Map<String, byte[]> drlFiles, String source, Long createdBy) {
+        Map<String, String> content = new TreeMap<>();
+        drlFiles.forEach((name, bytes) -> content.put(name, new String(bytes, StandardCharsets.UTF_8)));
+        
+        AlertRuleSet ruleSet = new AlertRuleSet();
+        ruleSet.setVersion(version);
+        ruleSet.setFingerprint(RuleModuleLoader.fingerprint(drlFiles));
+        ruleSet.setSource(source);
+        ruleSet.setCreatedBy(createdBy);
+        try {
+            ruleSet.setContent(objectMapper.writeValueAsString(content));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("规则集序列化失败");
+        }
+        alertRuleSetMapper.insert(ruleSet);
+        return ruleSet;
+    }
+    
+    /**
+     * 最新规则集的ID，库中没有上传记录时返回null
+     */
+    public Long latestId() {
+        AlertRuleSet latest = alertRuleSetMapper.selectOne(new LambdaQueryWrapper<AlertRuleSet>()
+                .select(AlertRuleSet::getId)
+                .orderByDesc(AlertRuleSet::getId)
+                .last("LIMIT 1"));
+        return latest == null ? null : latest.getId();
+    }
+    
+    public AlertRuleSet get(Long id) {
+        return alertRuleSetMapper.selectById(id);
+    }
+    
+    /**
+     * 还原规则文件内容
+     */
+    public Map<String, byte[]> drlFilesOf(AlertRuleSet ruleSet) {
+        Map<String, String> content;
+        try {
+            content = objectMapper.readValue(ruleSet.getContent(), new TypeReference<Map<String, String>>() {});
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("规则集内容解析失败: " + ruleSet.getVersion());
+        }
+        Map<String, byte[]> drlFiles = new TreeMap<>();
+        content.forEach((name, drl) -> drlFiles.put(name, drl.getBytes(StandardCharsets.UTF_8)));
+        return drlFiles;
+    }
+}
@@ -0,0 +1,44 @@
+package com.health.drools;
+
+import com.health.entity.HealthAlert;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.command.Command;
+import org.kie.api.command.KieCommands;
+import org.kie.api.runtime.ClassObjectFilter;
+import org.kie.api.runtime.ExecutionResults;
+import org.kie.api.runtime.StatelessKieSession;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 基于无状态会话的规则执行器
+ * StatelessKieSession可在多线程间共享，每次执行互不影响
+ */
+public class StatelessAlertRuleEvaluator implements AlertRuleEvaluator {
+    
+    private static final String ALERTS_OUT = "alerts";
+    
+    private final StatelessKieSession session;
+    private final KieCommands commands;
+    
+    public StatelessAlertRuleEvaluator(KieBase kieBase) {
+        this.session = kieBase.newStatelessKieSession();
+        this.commands = KieServices.Factory.get().getCommands();
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<HealthAlert> evaluate(Collection<?> facts) {
+        List<Command<?>> batch = new ArrayList<>(3);
+        batch.add(commands.newInsertElements(facts));
+        batch.add(commands.newFireAllRules());
+        // 规则通过insert(alert)产出预警，执行结束后按类型取回
+        batch.add(commands.newGetObjects(new ClassObjectFilter(HealthAlert.class), ALERTS_OUT));
+        
+        ExecutionResults results = session.execute(commands.newBatchExecution(batch));
+        return new ArrayList<>((Collection<HealthAlert>) results.getValue(ALERTS_OUT));
+    }
+}
@@ -0,0 +1,18 @@
+package com.health.drools.cep;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 每日静息心率，以当日最低心率近似
+ */
+@Data
+@AllArgsConstructor
+public class DailyRestingHeartRate {
+    
+    private Long userId;
+    
+    private long epochDay;
+    
+    private int minRate;
+}
@@ -0,0 +1,364 @@
+package com.health.drools.cep;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.health.drools.RuleModuleLoader;
+import com.health.entity.HealthAlert;
+import com.health.entity.HealthRecord;
+import com.health.mapper.HealthRecordMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.conf.EventProcessingOption;
+import org.kie.api.io.ResourceType;
+import org.kie.api.runtime.ClassObjectFilter;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.KieSessionConfiguration;
+import org.kie.api.runtime.conf.ClockTypeOption;
+import org.kie.api.runtime.rule.FactHandle;
+import org.kie.api.time.SessionPseudoClock;
+import org.kie.internal.utils.KieHelper;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 时序预警引擎
+ * 每个活跃用户持有一个STREAM模式的长生命周期会话，按记录时刻推进伪时钟，
+ * 新记录增量进入滑动窗口，过期事件由引擎回收，单用户事件数和活跃用户数均有上限；
+ * 会话被回收或淘汰后，用户再次有记录时先从health_record恢复最长规则窗口内的历史事件
+ */
+@Slf4j
+@Component
+public class TemporalAlertEngine implements DisposableBean {
+    
+    private static final String CEP_RULES = "classpath*:drools/cep/**/*.drl";
+    
+    private static final int RESTING_HEART_RATE_DAYS = 6;
+    
+    @Value("${drools.cep.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${drools.cep.max-events-per-user:500}")
+    private Integer maxEventsPerUser;
+    
+    @Value("${drools.cep.idle-timeout-minutes:120}")
+    private Long idleTimeoutMinutes;
+    
+    private final HealthRecordMapper healthRecordMapper;
+    private final KieBase kieBase;
+    private final KieSessionConfiguration sessionConfiguration;
+    private final String version;
+    private final Map<Long, UserStream> streams;
+    
+    /**
+     * 被LRU淘汰、待释放的会话，在streams锁内登记，释放时不持有streams锁
+     */
+    private final List<UserStream> evicted = new ArrayList<>();
+    
+    public TemporalAlertEngine(HealthRecordMapper healthRecordMapper,
+                               @Value("${drools.cep.max-active-users:10000}") Integer maxActiveUsers) throws IOException {
+        this.healthRecordMapper = healthRecordMapper;
+        Map<String, byte[]> drlFiles = new TreeMap<>();
+        KieHelper kieHelper = new KieHelper();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(CEP_RULES)) {
+            try (InputStream in = resource.getInputStream()) {
+                byte[] drl = StreamUtils.copyToByteArray(in);
+                drlFiles.put(resource.getFilename(), drl);
+                kieHelper.addResource(KieServices.Factory.get().getResources()
+                        .newByteArrayResource(drl, "UTF-8").setSourcePath("drools/cep/" + resource.getFilename()), ResourceType.DRL);
+            }
+        }
+        this.kieBase = kieHelper.build(EventProcessingOption.STREAM);
+        this.version = "cep-" + RuleModuleLoader.fingerprint(drlFiles);
+        
+        this.sessionConfiguration = KieServices.Factory.get().newKieSessionConfiguration();
+        this.sessionConfiguration.setOption(ClockTypeOption.get("pseudo"));
+        
+        // 按访问顺序淘汰最久未活跃的用户会话
+        this.streams = new LinkedHashMap<Long, UserStream>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UserStream> eldest) {
+                if (size() > maxActiveUsers) {
+                    evicted.add(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    /**
+     * 将新记录送入各自用户的事件流并触发时序规则，返回新产生的预警
+     */
+    public List<HealthAlert> process(Collection<HealthRecord> records) {
+        List<HealthAlert> alerts = new ArrayList<>();
+        if (!enabled) {
+            return alerts;
+        }
+        // 本批记录可能已提交，恢复窗口时排除，避免重复进入会话
+        Set<Long> batchIds = new HashSet<>();
+        for (HealthRecord record : records) {
+            if (record.getId() != null) {
+                batchIds.add(record.getId());
+            }
+        }
+        for (HealthRecord record : records) {
+            if (record.getUserId() == null || record.getRecordDate() == null) {
+                continue;
+            }
+            // 会话可能在获取后被淘汰，此时重新获取；持有用户会话锁时不再申请全局锁，也不查库
+            boolean accepted = false;
+            while (!accepted) {
+                UserStream stream = stream(record.getUserId());
+                List<HealthRecord> history = stream.restored ? null : loadHistory(record);
+                synchronized (stream) {
+                    if (!stream.disposed) {
+                        if (!stream.restored) {
+                            stream.restore(history, batchIds);
+                        }
+                        alerts.addAll(stream.accept(record));
+                        accepted = true;
+                    }
+                }
+            }
+        }
+        return alerts;
+    }
+    
+    /**
+     * 当前活跃用户数
+     */
+    public int getActiveUsers() {
+        synchronized (streams) {
+            return streams.size();
+        }
+    }
+    
+    /**
+     * 回收长时间无新记录的用户会话
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdle() {
+        long deadline = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(idleTimeoutMinutes);
+        List<UserStream> idle = new ArrayList<>();
+        synchronized (streams) {
+            Iterator<UserStream> iterator = streams.values().iterator();
+            while (iterator.hasNext()) {
+                UserStream stream = iterator.next();
+                if (stream.lastAccess < deadline) {
+                    idle.add(stream);
+                    iterator.remove();
+                }
+            }
+        }
+        // 释放需要等待用户会话锁，不能在streams锁内进行，否则会阻塞所有用户
+        idle.forEach(UserStream::dispose);
+    }
+    
+    @Override
+    public void destroy() {
+        List<UserStream> all;
+        synchronized (streams) {
+            all = new ArrayList<>(streams.values());
+            all.addAll(evicted);
+            streams.clear();
+            evicted.clear();
+        }
+        all.forEach(UserStream::dispose);
+    }
+    
+    private UserStream stream(Long userId) {
+        UserStream stream;
+        List<UserStream> toDispose;
+        synchronized (streams) {
+            stream = streams.computeIfAbsent(userId, id -> new UserStream());
+            if (evicted.isEmpty()) {
+                return stream;
+            }
+            toDispose = new ArrayList<>(evicted);
+            evicted.clear();
+        }
+        toDispose.forEach(UserStream::dispose);
+        return stream;
+    }
+    
+    /**
+     * 查询用户最长规则窗口内的历史记录，用于新会话恢复；在用户会话锁外执行，查询失败时返回null
+     */
+    private List<HealthRecord> loadHistory(HealthRecord first) {
+        try {
+            return healthRecordMapper.selectList(new LambdaQueryWrapper<HealthRecord>()
+                    .eq(HealthRecord::getUserId, first.getUserId())
+                    .ge(HealthRecord::getRecordDate, first.getRecordDate().minusDays(RESTING_HEART_RATE_DAYS))
+                    .orderByDesc(HealthRecord::getId)
+                    .last("LIMIT " + maxEventsPerUser));
+        } catch (Exception e) {
+            log.warn("恢复时序窗口失败: userId={}, {}", first.getUserId(), e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * 单个用户的事件流
+     */
+    private class UserStream {
+        
+        private final KieSession session = kieBase.newKieSession(sessionConfiguration, null);
+        private final SessionPseudoClock clock = session.getSessionClock();
+        private final Deque<FactHandle> events = new ArrayDeque<>();
+        private final Map<Long, FactHandle> dailyHeartRates = new HashMap<>();
+        private volatile long lastAccess = System.currentTimeMillis();
+        private volatile boolean disposed;
+        private volatile boolean restored;
+        
+        /**
+         * 新建会话时重放最长规则窗口内的历史记录，重放期间触发的预警此前已产生过，只保留防重复标记
+         *
+         * @param history 锁外查出的历史记录，查询失败时为null，此时不恢复
+         */
+        void restore(List<HealthRecord> history, Set<Long> excludeIds) {
+            restored = true;
+            if (history == null) {
+                return;
+            }
+            // 按记录时刻顺序重放，伪时钟逐步前进
+            List<VitalSignEvent> replay = new ArrayList<>();
+            for (HealthRecord record : history) {
+                if (!excludeIds.contains(record.getId())) {
+                    replay.add(toEvent(record));
+                }
+            }
+            replay.sort(Comparator.comparingLong(VitalSignEvent::getTimestamp));
+            replay.forEach(this::insertEvent);
+            session.fireAllRules();
+            for (Object alert : session.getObjects(new ClassObjectFilter(HealthAlert.class))) {
+                session.delete(session.getFactHandle(alert));
+            }
+        }
+        
+        List<HealthAlert> accept(HealthRecord record) {
+            lastAccess = System.currentTimeMillis();
+            insertEvent(toEvent(record));
+            session.fireAllRules();
+            
+            List<HealthAlert> alerts = new ArrayList<>();
+            for (Object alert : session.getObjects(new ClassObjectFilter(HealthAlert.class))) {
+                HealthAlert healthAlert = (HealthAlert) alert;
+                healthAlert.setRuleVersion(version);
+                alerts.add(healthAlert);
+                session.delete(session.getFactHandle(alert));
+            }
+            return alerts;
+        }
+        
+        private void insertEvent(VitalSignEvent event) {
+            // 伪时钟只前进不后退，迟到的记录按原时刻进入窗口
+            long delta = event.getTimestamp() - clock.getCurrentTime();
+            if (delta > 0) {
+                clock.advanceTime(delta, TimeUnit.MILLISECONDS);
+            }
+            
+            events.addLast(session.insert(event));
+            if (event.getHeartRate() != null) {
+                updateRestingHeartRate(event);
+            }
+            trimEvents();
+        }
+        
+        /**
+         * 超过单用户事件上限时删除最早的事件；已过期的事件句柄直接丢弃
+         */
+        private void trimEvents() {
+            while (!events.isEmpty() && session.getObject(events.peekFirst()) == null) {
+                events.pollFirst();
+            }
+            while (events.size() > maxEventsPerUser) {
+                FactHandle oldest = events.pollFirst();
+                if (session.getObject(oldest) != null) {
+                    session.delete(oldest);
+                }
+            }
+        }
+        
+        private void updateRestingHeartRate(VitalSignEvent event) {
+            LocalDate day = LocalDateTime.ofInstant(Instant.ofEpochMilli(event.getTimestamp()),
+                    ZoneId.systemDefault()).toLocalDate();
+            long epochDay = day.toEpochDay();
+            
+            FactHandle handle = dailyHeartRates.get(epochDay);
+            if (handle == null) {
+                dailyHeartRates.put(epochDay, session.insert(
+                        new DailyRestingHeartRate(event.getUserId(), epochDay, event.getHeartRate())));
+            } else {
+                DailyRestingHeartRate daily = (DailyRestingHeartRate) session.getObject(handle);
+                if (event.getHeartRate() < daily.getMinRate()) {
+                    daily.setMinRate(event.getHeartRate());
+                    session.update(handle, daily);
+                }
+            }
+            
+            // 只保留最近几天
+            long oldest = epochDay - RESTING_HEART_RATE_DAYS;
+            dailyHeartRates.entrySet().removeIf(entry -> {
+                if (entry.getKey() < oldest) {
+                    session.delete(entry.getValue());
+                    return true;
+                }
+                return false;
+            });
+        }
+        
+        void dispose() {
+            synchronized (this) {
+                disposed = true;
+                session.dispose();
+            }
+        }
+    }
+    
+    private VitalSignEvent toEvent(HealthRecord record) {
+        LocalDateTime time;
+        if (record.getRecordTime() != null) {
+            time = record.getRecordDate().atTime(record.getRecordTime());
+        } else if (record.getRecordDate().equals(LocalDate.now())) {
+            time = LocalDateTime.now();
+        } else {
+            time = record.getRecordDate().atTime(LocalTime.NOON);
+        }
+        
+        VitalSignEvent event = new VitalSignEvent();
+        event.setUserId(record.getUserId());
+        event.setRecordId(record.getId());
+        event.setTimestamp(time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        event.setSystolicPressure(record.getSystolicPressure());
+        event.setDiastolicPressure(record.getDiastolicPressure());
+        event.setHeartRate(record.getHeartRate());
+        return event;
+    }
+}
@@ -0,0 +1,37 @@
+package com.health.drools.cep;
+
+import lombok.Data;
+import org.kie.api.definition.type.Expires;
+import org.kie.api.definition.type.Role;
+import org.kie.api.definition.type.Timestamp;
+
+/**
+ * 生命体征事件，时序规则中的健康记录
+ * 过期时间覆盖最长的事件窗口，过期后由引擎自动回收
+ */
+@Data
+@Role(Role.Type.EVENT)
+@Timestamp("timestamp")
+@Expires("2d")
+public class VitalSignEvent {
+    
+    private Long userId;
+    
+    private Long recordId;
+    
+    private long timestamp;  // 记录时刻，毫秒
+    
+    private Integer systolicPressure;
+    
+    private Integer diastolicPressure;
+    
+    private Integer heartRate;
+    
+    /**
+     * 血压是否达到轻度高血压阈值
+     */
+    public boolean isElevatedPressure() {
+        return systolicPressure != null && systolicPressure >= 140
+                || diastolicPressure != null && diastolicPressure >= 90;
+    }
+}
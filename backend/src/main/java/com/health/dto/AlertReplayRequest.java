@@ -0,0 +1,12 @@
+package com.health.dto;
+
+import lombok.Data;
+
+/**
+ * 预警补发请求DTO
+ */
+@Data
+public class AlertReplayRequest {
+    
+    private Long afterId;  // 客户端已收到的最大预警ID，为空时补发全部未处理预警
+}
@@ -0,0 +1,12 @@
+package com.health.dto;
+
+import lombok.Data;
+
+/**
+ * 重连补发请求DTO
+ */
+@Data
+public class ChatReplayRequest {
+    
+    private Long afterId;  // 客户端已收到的最后一条消息ID，为空时补发全部未读
+}
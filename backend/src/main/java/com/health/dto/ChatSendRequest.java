@@ -0,0 +1,20 @@
+package com.health.dto;
+
+import lombok.Data;
+
+/**
+ * 聊天消息发送请求DTO
+ */
+@Data
+public class ChatSendRequest {
+    
+    private String clientMsgId;  // 客户端生成的消息标识，用于匹配确认
+    
+    private Long toUserId;
+    
+    private String content;
+    
+    private Integer messageType;  // 1-文本 2-图片 3-文件
+    
+    private String fileUrl;
+}
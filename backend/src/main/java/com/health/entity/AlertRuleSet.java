@@ -0,0 +1,32 @@
+package com.health.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 上传的预警规则集实体类
+ */
+@Data
+@TableName("alert_rule_set")
+public class AlertRuleSet {
+    
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    
+    private String version;
+    
+    private String fingerprint;
+    
+    private String content;  // JSON对象，文件名 -> DRL内容
+    
+    private String source;
+    
+    private Long createdBy;
+    
+    @TableField(fill = FieldFill.INSERT)
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createTime;
+}
@@ -0,0 +1,32 @@
+package com.health.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 医患关系实体类
+ */
+@Data
+@TableName("doctor_patient_relation")
+public class DoctorPatientRelation {
+    
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    
+    private Long doctorId;
+    
+    private Long patientId;
+    
+    private Integer status;  // 0-已解除 1-正常
+    
+    @TableField(fill = FieldFill.INSERT)
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createTime;
+    
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime updateTime;
+}
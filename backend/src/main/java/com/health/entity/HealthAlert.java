@@ -34,6 +34,8 @@ public class HealthAlert {
     
     private Integer status;  // 0-未处理 1-已处理
     
+    private String ruleVersion;  // 产生该预警的规则集版本
+    
     private Long handledBy;
     
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
@@ -0,0 +1,55 @@
+package com.health.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 健康记录日汇总实体类
+ */
+@Data
+@TableName("health_record_daily")
+public class HealthRecordDaily {
+    
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    
+    private Long userId;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    private LocalDate statDate;
+    
+    private Integer recordCount;  // 当日记录数
+    
+    private Integer systolicCount;  // 收缩压
+    private Long systolicSum;
+    private Integer systolicMin;
+    private Integer systolicMax;
+    
+    private Integer diastolicCount;  // 舒张压
+    private Long diastolicSum;
+    private Integer diastolicMin;
+    private Integer diastolicMax;
+    
+    private Integer heartRateCount;  // 心率
+    private Long heartRateSum;
+    private Integer heartRateMin;
+    private Integer heartRateMax;
+    
+    private Integer weightCount;  // 体重
+    private BigDecimal weightSum;
+    private BigDecimal weightMin;
+    private BigDecimal weightMax;
+    
+    private Integer stepsCount;  // 步数
+    private Long stepsSum;
+    private Integer stepsMin;
+    private Integer stepsMax;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime updateTime;
+}
@@ -2,6 +2,8 @@ package com.health.entity;
 
 import com.baomidou.mybatisplus.annotation.*;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import lombok.Data;
 
 import java.time.LocalDateTime;
@@ -14,6 +16,7 @@ import java.time.LocalDateTime;
 public class Message {
     
     @TableId(type = IdType.AUTO)
+    @JsonSerialize(using = ToStringSerializer.class)  // 雪花ID超出JS整数精度
     private Long id;
     
     private Long fromUserId;
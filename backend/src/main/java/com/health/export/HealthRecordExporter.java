@@ -0,0 +1,128 @@
+package com.health.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.health.entity.HealthRecord;
+import com.health.service.HealthRecordService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 健康记录导出器
+ * 边读边写，内存占用与记录总数无关
+ */
+@Component
+@RequiredArgsConstructor
+public class HealthRecordExporter {
+    
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private static final String CSV_HEADER = "id,recordDate,recordTime,systolicPressure,diastolicPressure,"
+            + "heartRate,bloodSugar,weight,temperature,bloodOxygen,steps,sleepHours,notes,createTime\n";
+    
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    private final HealthRecordService healthRecordService;
+    private final ObjectMapper objectMapper;
+    
+    /**
+     * 将用户的健康记录按指定格式写入输出流，调用方负责关闭输出流
+     */
+    public void export(Long userId, LocalDate startDate, LocalDate endDate, String format,
+                       OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        
+        if (FORMAT_NDJSON.equals(format)) {
+            SequenceWriter sequenceWriter = objectMapper.writer()
+                    .withRootValueSeparator("\n")
+                    .writeValues(writer);
+            long[] count = new long[1];
+            healthRecordService.streamRecords(userId, startDate, endDate, record -> {
+                try {
+                    sequenceWriter.write(record);
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            sequenceWriter.flush();
+            if (count[0] > 0) {
+                writer.write('\n');
+            }
+        } else {
+            writer.write(CSV_HEADER);
+            healthRecordService.streamRecords(userId, startDate, endDate, record -> {
+                try {
+                    writeCsvRow(writer, record);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        
+        writer.flush();
+    }
+    
+    private void writeCsvRow(Writer writer, HealthRecord record) throws IOException {
+        writer.write(String.valueOf(record.getId()));
+        writer.write(',');
+        writer.write(csvValue(record.getRecordDate()));
+        writer.write(',');
+        writer.write(record.getRecordTime() == null ? "" : record.getRecordTime().format(TIME_FORMATTER));
+        writer.write(',');
+        writer.write(csvValue(record.getSystolicPressure()));
+        writer.write(',');
+        writer.write(csvValue(record.getDiastolicPressure()));
+        writer.write(',');
+        writer.write(csvValue(record.getHeartRate()));
+        writer.write(',');
+        writer.write(csvValue(record.getBloodSugar()));
+        writer.write(',');
+        writer.write(csvValue(record.getWeight()));
+        writer.write(',');
+        writer.write(csvValue(record.getTemperature()));
+        writer.write(',');
+        writer.write(csvValue(record.getBloodOxygen()));
+        writer.write(',');
+        writer.write(csvValue(record.getSteps()));
+        writer.write(',');
+        writer.write(csvValue(record.getSleepHours()));
+        writer.write(',');
+        writer.write(csvText(record.getNotes()));
+        writer.write(',');
+        writer.write(record.getCreateTime() == null ? "" : record.getCreateTime().format(DATE_TIME_FORMATTER));
+        writer.write('\n');
+    }
+    
+    private String csvValue(Object value) {
+        return value == null ? "" : value.toString();
+    }
+    
+    /**
+     * 文本字段含分隔符、引号或换行时加引号转义
+     */
+    private String csvText(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,201 @@
+package com.health.ingest;
+
+import com.health.entity.HealthRecord;
+import com.health.service.HealthRecordService;
+import com.health.vo.BatchResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 健康记录异步写入管道
+ * 请求线程只负责入队，后台写线程按批次大小或等待时间合并提交
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HealthRecordIngestPipeline implements SmartLifecycle {
+    
+    private final HealthRecordService healthRecordService;
+    
+    @Value("${health-record.ingest.async-enabled:false}")
+    private boolean enabled;
+    
+    @Value("${health-record.ingest.queue-capacity:10000}")
+    private Integer queueCapacity;
+    
+    @Value("${health-record.ingest.batch-size:500}")
+    private Integer batchSize;
+    
+    @Value("${health-record.ingest.linger-ms:50}")
+    private Long lingerMs;
+    
+    @Value("${health-record.ingest.writer-threads:2}")
+    private Integer writerThreads;
+    
+    @Value("${health-record.ingest.shutdown-timeout-ms:30000}")
+    private Long shutdownTimeoutMs;
+    
+    private BlockingQueue<HealthRecord> queue;
+    private ExecutorService writers;
+    private volatile boolean running;
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * 提交一条健康记录，队列已满时立即拒绝
+     */
+    public void submit(HealthRecord record) {
+        if (record.getUserId() == null) {
+            throw new RuntimeException("用户ID不能为空");
+        }
+        if (record.getRecordDate() == null) {
+            record.setRecordDate(LocalDate.now());
+        }
+        if (!running) {
+            throw new IngestRejectedException("写入服务未就绪，请稍后重试");
+        }
+        if (!queue.offer(record)) {
+            throw new IngestRejectedException("系统繁忙，请稍后重试");
+        }
+    }
+    
+    /**
+     * 当前排队等待写入的记录数
+     */
+    public int getQueueSize() {
+        return queue == null ? 0 : queue.size();
+    }
+    
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger seq = new AtomicInteger();
+        writers = Executors.newFixedThreadPool(writerThreads, r -> {
+            Thread t = new Thread(r, "record-writer-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        running = true;
+        for (int i = 0; i < writerThreads; i++) {
+            writers.execute(this::drainLoop);
+        }
+        log.info("健康记录异步写入已启用: capacity={}, batchSize={}, lingerMs={}, writers={}",
+                queueCapacity, batchSize, lingerMs, writerThreads);
+    }
+    
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        writers.shutdown();
+        try {
+            if (!writers.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+                writers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 写线程退出后仍有残留时，在关闭线程上补刷
+        List<HealthRecord> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (int from = 0; from < remaining.size(); from += batchSize) {
+            flush(remaining.subList(from, Math.min(from + batchSize, remaining.size())));
+        }
+        log.info("健康记录异步写入已停止");
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * 在Web服务器停止接收请求之后再停止，保证排空队列时不再有新记录入队
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 2048;
+    }
+    
+    private void drainLoop() {
+        List<HealthRecord> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                HealthRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                
+                // 在等待时间内尽量凑满一批，合并为一次提交
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remainNanos = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remainNanos <= 0) {
+                        break;
+                    }
+                    HealthRecord next = queue.poll(remainNanos, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                flush(batch);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void flush(List<HealthRecord> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            BatchResult result = healthRecordService.addRecords(new ArrayList<>(batch));
+            if (result.getFailureCount() > 0) {
+                result.getItems().stream()
+                      .filter(item -> !item.getSuccess())
+                      .forEach(item -> log.warn("异步写入记录校验失败: {}", item.getMessage()));
+            }
+        } catch (Exception e) {
+            // 整批在同一事务内回滚，逐条重试，只让出错的记录失败
+            log.warn("异步批量写入失败，逐条重试{}条: {}", batch.size(), e.getMessage());
+            for (HealthRecord record : batch) {
+                try {
+                    record.setId(null);  // 回滚前回填的自增ID已失效
+                    healthRecordService.addRecord(record);
+                } catch (Exception single) {
+                    log.error("异步写入健康记录失败: userId={}, recordDate={}, recordTime={}",
+                            record.getUserId(), record.getRecordDate(), record.getRecordTime(), single);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.health.ingest;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 写入队列已满时抛出，响应429
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class IngestRejectedException extends RuntimeException {
+    
+    public IngestRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.health.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.health.entity.DoctorPatientRelation;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface DoctorPatientRelationMapper extends BaseMapper<DoctorPatientRelation> {
+}
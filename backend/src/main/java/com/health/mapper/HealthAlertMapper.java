@@ -4,6 +4,13 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.health.entity.HealthAlert;
 import org.apache.ibatis.annotations.Mapper;
 
+import java.util.List;
+
 @Mapper
 public interface HealthAlertMapper extends BaseMapper<HealthAlert> {
+    
+    /**
+     * 多值批量插入预警，回填自增ID
+     */
+    int insertBatch(List<HealthAlert> list);
 }
@@ -0,0 +1,35 @@
+package com.health.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.health.entity.HealthRecordDaily;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 健康记录日汇总Mapper接口
+ */
+@Mapper
+public interface HealthRecordDailyMapper extends BaseMapper<HealthRecordDaily> {
+    
+    /**
+     * 按增量累加日汇总，不存在则插入
+     */
+    int upsertDeltas(List<HealthRecordDaily> list);
+    
+    /**
+     * 从原始记录重新计算日汇总，userId为空时重算全部用户（会扫描全表，定时任务按用户分批调用）
+     */
+    int rebuild(@Param("userId") Long userId,
+                @Param("startDate") LocalDate startDate,
+                @Param("endDate") LocalDate endDate);
+    
+    /**
+     * 汇总指定用户在日期区间内的日汇总行
+     */
+    HealthRecordDaily sumByUserAndDateRange(@Param("userId") Long userId,
+                                            @Param("startDate") LocalDate startDate,
+                                            @Param("endDate") LocalDate endDate);
+}
@@ -3,7 +3,24 @@ package com.health.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.health.entity.HealthRecord;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
+
+import java.time.LocalDate;
+import java.util.List;
 
 @Mapper
 public interface HealthRecordMapper extends BaseMapper<HealthRecord> {
+    
+    /**
+     * 多值批量插入健康记录，回填自增ID
+     */
+    int insertBatch(List<HealthRecord> list);
+    
+    /**
+     * 按日期升序流式读取用户的健康记录，需在事务内消费
+     */
+    Cursor<HealthRecord> streamByUser(@Param("userId") Long userId,
+                                      @Param("startDate") LocalDate startDate,
+                                      @Param("endDate") LocalDate endDate);
 }
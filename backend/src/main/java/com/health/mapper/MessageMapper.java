@@ -3,7 +3,64 @@ package com.health.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.health.entity.Message;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface MessageMapper extends BaseMapper<Message> {
+    
+    /**
+     * 多值批量插入，ID和发送时间由应用生成
+     */
+    int insertBatch(List<Message> list);
+    
+    /**
+     * 查询发给用户的ID大于afterId的消息，afterId为空时查询全部未读
+     */
+    List<Message> selectForReplay(@Param("toUserId") Long toUserId,
+                                  @Param("afterId") Long afterId,
+                                  @Param("limit") Integer limit);
+    
+    /**
+     * 两个用户之间的会话，按(create_time, id)倒序，游标为空时从最新一条开始
+     */
+    List<Message> selectConversation(@Param("userId") Long userId,
+                                     @Param("peerId") Long peerId,
+                                     @Param("beforeTime") LocalDateTime beforeTime,
+                                     @Param("beforeId") Long beforeId,
+                                     @Param("limit") Integer limit);
+    
+    /**
+     * 将peerId发给userId、ID不大于maxId的未读消息标记为已读
+     */
+    int markConversationRead(@Param("userId") Long userId, @Param("peerId") Long peerId, @Param("maxId") Long maxId);
+    
+    /**
+     * 用户的未读消息总数
+     */
+    long countUnread(@Param("toUserId") Long toUserId);
+    
+    /**
+     * 流式读取有未读消息的接收者ID，需在事务内消费
+     */
+    Cursor<Long> streamUnreadOwners();
+    
+    /**
+     * 用户按发送者分组的未读数
+     */
+    List<Map<String, Object>> selectUnreadCounts(@Param("toUserId") Long toUserId);
+    
+    /**
+     * 流式读取发过或收到过消息的用户ID，需在事务内消费
+     */
+    Cursor<Long> streamParticipants();
+    
+    /**
+     * 用户与每个联系人的最近消息时间（毫秒）
+     */
+    List<Map<String, Object>> selectContacts(@Param("userId") Long userId);
 }
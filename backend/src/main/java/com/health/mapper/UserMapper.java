@@ -3,10 +3,25 @@ package com.health.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.health.entity.User;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * 用户Mapper接口
  */
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
+    
+    /**
+     * 流式读取全部用户名，需在事务内消费
+     */
+    Cursor<String> streamUsernames();
+    
+    /**
+     * 查询已存在的用户名
+     */
+    List<String> selectExistingUsernames(@Param("usernames") Collection<String> usernames);
 }
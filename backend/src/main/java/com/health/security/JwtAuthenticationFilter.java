@@ -0,0 +1,49 @@
+package com.health.security;
+
+import com.health.utils.JwtUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * JWT认证过滤器
+ * 每个请求只验证一次Token，登录用户放入SecurityContext供后续读取
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+    
+    private final JwtUtil jwtUtil;
+    private final String header;
+    private final String prefix;
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String value = request.getHeader(header);
+        if (value != null && value.startsWith(prefix)) {
+            try {
+                LoginUser loginUser = jwtUtil.verify(value.substring(prefix.length()));
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                        loginUser, null,
+                        Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + loginUser.getRole())));
+                SecurityContextHolder.getContext().setAuthentication(authentication);
+            } catch (Exception e) {
+                // Token无效时不设置认证信息，由后续授权规则拒绝
+                log.debug("Token验证失败: {}", e.getMessage());
+                SecurityContextHolder.clearContext();
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
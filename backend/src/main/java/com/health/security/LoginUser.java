@@ -0,0 +1,18 @@
+package com.health.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 当前登录用户，由JWT过滤器放入SecurityContext
+ */
+@Getter
+@AllArgsConstructor
+public class LoginUser {
+    
+    private final Long userId;
+    
+    private final String username;
+    
+    private final String role;  // PATIENT, DOCTOR
+}
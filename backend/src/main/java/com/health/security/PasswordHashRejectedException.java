@@ -0,0 +1,15 @@
+package com.health.security;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 密码哈希线程池已满或等待超时时抛出，响应429
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class PasswordHashRejectedException extends RuntimeException {
+    
+    public PasswordHashRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,161 @@
+package com.health.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 密码哈希执行器
+ * BCrypt计算放到独立的有界线程池，不占满Tomcat工作线程的CPU；排队已满时立即拒绝
+ */
+@Slf4j
+@Component
+public class PasswordHasher implements DisposableBean {
+    
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer queueWaitTimer;
+    private final Counter rejectedCounter;
+    
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          MeterRegistry meterRegistry,
+                          @Value("${security.password.threads:0}") Integer threads,
+                          @Value("${security.password.queue-capacity:64}") Integer queueCapacity,
+                          @Value("${security.password.timeout-ms:5000}") Long timeoutMs) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutMs = timeoutMs;
+        
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "password-hasher-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        
+        this.encodeTimer = meterRegistry.timer("health.password.hash", "op", "encode");
+        this.matchesTimer = meterRegistry.timer("health.password.hash", "op", "matches");
+        this.queueWaitTimer = meterRegistry.timer("health.password.queue.wait");
+        this.rejectedCounter = meterRegistry.counter("health.password.rejected");
+        Gauge.builder("health.password.queue", executor, e -> e.getQueue().size()).register(meterRegistry);
+    }
+    
+    /**
+     * 加密密码
+     */
+    public String encode(CharSequence rawPassword) {
+        return execute(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+    
+    /**
+     * 批量加密，每次最多提交线程数个任务并行计算，不占满留给登录请求的排队位置
+     * 单个密码被拒绝或超时时对应位置为null，由调用方按条记录失败
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        List<String> encoded = new ArrayList<>(Collections.nCopies(rawPasswords.size(), null));
+        int window = executor.getMaximumPoolSize();
+        for (int from = 0; from < rawPasswords.size(); from += window) {
+            int to = Math.min(from + window, rawPasswords.size());
+            List<Future<String>> futures = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                CharSequence rawPassword = rawPasswords.get(i);
+                try {
+                    futures.add(submit(encodeTimer, () -> passwordEncoder.encode(rawPassword)));
+                } catch (PasswordHashRejectedException e) {
+                    futures.add(null);
+                }
+            }
+            for (int i = from; i < to; i++) {
+                Future<String> future = futures.get(i - from);
+                if (future == null) {
+                    continue;
+                }
+                try {
+                    encoded.set(i, await(future));
+                } catch (PasswordHashRejectedException e) {
+                    log.warn("批量加密密码超时: 第{}个", i);
+                }
+            }
+        }
+        return encoded;
+    }
+    
+    /**
+     * 校验密码
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+    
+    /**
+     * 已存储的哈希强度低于当前配置时返回true，登录成功后应重新加密
+     */
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+    
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+    
+    private <T> T execute(Timer timer, Callable<T> task) {
+        return await(submit(timer, task));
+    }
+    
+    private <T> Future<T> submit(Timer timer, Callable<T> task) {
+        long submitted = System.nanoTime();
+        try {
+            return executor.submit(() -> {
+                long started = System.nanoTime();
+                queueWaitTimer.record(started - submitted, TimeUnit.NANOSECONDS);
+                try {
+                    return task.call();
+                } finally {
+                    timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new PasswordHashRejectedException("登录请求过多，请稍后重试");
+        }
+    }
+    
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new PasswordHashRejectedException("登录请求过多，请稍后重试");
+        } catch (ExecutionException e) {
+            log.error("密码哈希计算失败", e.getCause());
+            throw new RuntimeException("密码校验失败");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("密码校验被中断");
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.health.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * 读取当前请求的登录用户
+ */
+public final class SecurityUtil {
+    
+    private SecurityUtil() {
+    }
+    
+    /**
+     * 获取当前登录用户，未登录时抛出异常
+     */
+    public static LoginUser getLoginUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof LoginUser) {
+            return (LoginUser) authentication.getPrincipal();
+        }
+        throw new RuntimeException("未授权访问");
+    }
+    
+    /**
+     * 获取当前登录用户ID
+     */
+    public static Long getUserId() {
+        return getLoginUser().getUserId();
+    }
+}
@@ -0,0 +1,64 @@
+package com.health.security;
+
+import com.health.utils.JwtUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * STOMP认证拦截器
+ * CONNECT帧必须携带有效Token，会话用户名为用户ID；只允许订阅/user和/topic目的地，
+ * 防止直接订阅其他用户会话解析后的/queue地址；客户端SEND只能发往/app下的处理方法，
+ * 防止绕过业务校验直接向代理投递伪造的预警或聊天消息
+ */
+@Component
+@RequiredArgsConstructor
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+    
+    private final JwtUtil jwtUtil;
+    
+    @Value("${jwt.header:Authorization}")
+    private String jwtHeader;
+    
+    @Value("${jwt.prefix:Bearer}")
+    private String jwtPrefix;
+    
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        
+        if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+            String value = accessor.getFirstNativeHeader(jwtHeader);
+            String prefix = jwtPrefix.trim() + " ";
+            if (value == null || !value.startsWith(prefix)) {
+                throw new MessagingException("未授权访问");
+            }
+            try {
+                accessor.setUser(new StompPrincipal(jwtUtil.verify(value.substring(prefix.length()))));
+            } catch (Exception e) {
+                throw new MessagingException("Token无效或已过期");
+            }
+        } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            String destination = accessor.getDestination();
+            if (destination == null || !(destination.startsWith("/user/") || destination.startsWith("/topic/"))) {
+                throw new MessagingException("不允许订阅该地址");
+            }
+        } else if (StompCommand.SEND.equals(accessor.getCommand())) {
+            String destination = accessor.getDestination();
+            if (destination == null || !destination.startsWith("/app/")) {
+                throw new MessagingException("不允许向该地址发送消息");
+            }
+        }
+        return message;
+    }
+}
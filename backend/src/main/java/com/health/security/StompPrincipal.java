@@ -0,0 +1,28 @@
+package com.health.security;
+
+import java.security.Principal;
+
+/**
+ * WebSocket会话的登录用户，名称为用户ID，用于/user目的地路由
+ */
+public class StompPrincipal implements Principal {
+    
+    private final LoginUser loginUser;
+    
+    public StompPrincipal(LoginUser loginUser) {
+        this.loginUser = loginUser;
+    }
+    
+    @Override
+    public String getName() {
+        return String.valueOf(loginUser.getUserId());
+    }
+    
+    public LoginUser getLoginUser() {
+        return loginUser;
+    }
+    
+    public Long getUserId() {
+        return loginUser.getUserId();
+    }
+}
@@ -3,7 +3,9 @@ package com.health.service;
 import com.health.dto.LoginRequest;
 import com.health.dto.RegisterRequest;
 import com.health.entity.User;
+import com.health.vo.BatchResult;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -16,6 +18,11 @@ public interface AuthService {
      */
     void register(RegisterRequest request);
     
+    /**
+     * 批量注册，逐条返回结果
+     */
+    BatchResult registerBatch(List<RegisterRequest> requests);
+    
     /**
      * 用户登录
      */
@@ -0,0 +1,43 @@
+package com.health.service;
+
+import com.health.entity.HealthRecord;
+import com.health.entity.HealthRecordDaily;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 健康记录日汇总服务接口
+ */
+public interface HealthRecordRollupService {
+    
+    /**
+     * 新增记录后增量累加日汇总
+     */
+    void applyInserted(List<HealthRecord> records);
+    
+    /**
+     * 从原始记录重算指定用户某一天的日汇总
+     */
+    void rebuildDay(Long userId, LocalDate date);
+    
+    /**
+     * 重算指定用户在日期区间内的日汇总，日期为空表示不限
+     */
+    void rebuildUser(Long userId, LocalDate startDate, LocalDate endDate);
+    
+    /**
+     * 按ID升序取afterId之后的一批用户ID，用于分批重算
+     */
+    List<Long> userIdsAfter(Long afterId, int limit);
+    
+    /**
+     * 汇总指定用户在日期区间内的数据，无数据返回null
+     */
+    HealthRecordDaily summarize(Long userId, LocalDate startDate, LocalDate endDate);
+    
+    /**
+     * 需要回填的起始日期：原始记录早于before而日汇总中没有before之前的数据时返回最早记录日期，否则返回null
+     */
+    LocalDate backfillStartDate(LocalDate before);
+}
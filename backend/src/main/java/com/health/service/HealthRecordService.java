@@ -2,10 +2,14 @@ package com.health.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.health.entity.HealthRecord;
+import com.health.vo.BatchResult;
+import com.health.vo.CursorPage;
+import com.health.vo.TrendData;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * 健康记录服务接口
@@ -17,6 +21,11 @@ public interface HealthRecordService {
      */
     void addRecord(HealthRecord record);
     
+    /**
+     * 批量添加健康记录，单事务内分批多值插入，返回逐条处理结果
+     */
+    BatchResult addRecords(List<HealthRecord> records);
+    
     /**
      * 获取健康记录详情
      */
@@ -28,6 +37,20 @@ public interface HealthRecordService {
     Page<HealthRecord> getRecordList(Long userId, Integer pageNum, Integer pageSize, 
                                       LocalDate startDate, LocalDate endDate);
     
+    /**
+     * 游标分页查询健康记录，按(记录日期, 记录时间, ID)倒序定位，不做OFFSET扫描
+     *
+     * @param cursor    上一页返回的游标，首页为空
+     * @param withTotal 是否额外统计总数
+     */
+    CursorPage<HealthRecord> getRecordListByCursor(Long userId, String cursor, Integer pageSize,
+                                                    LocalDate startDate, LocalDate endDate, boolean withTotal);
+    
+    /**
+     * 流式遍历用户的健康记录，逐条交给consumer处理，不在内存中汇总结果
+     */
+    void streamRecords(Long userId, LocalDate startDate, LocalDate endDate, Consumer<HealthRecord> consumer);
+    
     /**
      * 更新健康记录
      */
@@ -44,7 +67,7 @@ public interface HealthRecordService {
     Map<String, Object> getStatistics(Long userId, Integer days);
     
     /**
-     * 获取趋势数据
+     * 获取趋势数据，点数超过maxPoints时在服务端降采样
      */
-    List<Map<String, Object>> getTrendData(Long userId, String indicator, Integer days);
+    TrendData getTrendData(Long userId, String indicator, Integer days, Integer maxPoints);
 }
@@ -1,6 +1,8 @@
 package com.health.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.health.cache.UserCache;
+import com.health.cache.UsernameBloomFilter;
 import com.health.dto.LoginRequest;
 import com.health.dto.RegisterRequest;
 import com.health.entity.DoctorInfo;
@@ -9,19 +11,31 @@ import com.health.entity.User;
 import com.health.mapper.DoctorInfoMapper;
 import com.health.mapper.PatientInfoMapper;
 import com.health.mapper.UserMapper;
+import com.health.security.PasswordHasher;
 import com.health.service.AuthService;
 import com.health.utils.JwtUtil;
+import com.health.vo.BatchResult;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * 认证服务实现类
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AuthServiceImpl implements AuthService {
@@ -29,50 +43,105 @@ public class AuthServiceImpl implements AuthService {
     private final UserMapper userMapper;
     private final DoctorInfoMapper doctorInfoMapper;
     private final PatientInfoMapper patientInfoMapper;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtUtil jwtUtil;
+    private final UserCache userCache;
+    private final UsernameBloomFilter usernameBloomFilter;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    
+    @Value("${user.register.batch-max-size:1000}")
+    private Integer batchMaxSize;
     
     @Override
     @Transactional
     public void register(RegisterRequest request) {
-        // 检查用户名是否存在
-        LambdaQueryWrapper<User> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(User::getUsername, request.getUsername());
-        if (userMapper.selectCount(wrapper) > 0) {
+        // 检查用户名是否存在，布隆过滤器判定不存在时跳过查询
+        if (usernameBloomFilter.mightContain(request.getUsername())) {
+            LambdaQueryWrapper<User> wrapper = new LambdaQueryWrapper<>();
+            wrapper.eq(User::getUsername, request.getUsername());
+            if (userMapper.selectCount(wrapper) > 0) {
+                throw new RuntimeException("用户名已存在");
+            }
+        }
+        
+        try {
+            createUser(request, passwordHasher.encode(request.getPassword()));
+        } catch (DuplicateKeyException e) {
             throw new RuntimeException("用户名已存在");
         }
+    }
+    
+    @Override
+    public BatchResult registerBatch(List<RegisterRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new RuntimeException("注册信息不能为空");
+        }
+        if (requests.size() > batchMaxSize) {
+            throw new RuntimeException("单次最多注册" + batchMaxSize + "个用户");
+        }
         
-        // 创建用户
-        User user = new User();
-        user.setUsername(request.getUsername());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
-        user.setRealName(request.getRealName());
-        user.setGender(request.getGender());
-        user.setAge(request.getAge());
-        user.setPhone(request.getPhone());
-        user.setEmail(request.getEmail());
-        user.setRole(request.getRole());
-        user.setStatus(1);
+        BatchResult result = new BatchResult();
+        List<Integer> validIndexes = new ArrayList<>(requests.size());
+        Set<String> batchNames = new HashSet<>();
+        List<String> possiblyExisting = new ArrayList<>();
         
-        userMapper.insert(user);
+        for (int i = 0; i < requests.size(); i++) {
+            RegisterRequest request = requests.get(i);
+            if (request != null) {
+                // 批量注册只用于导入患者，不允许借此创建医生账号
+                request.setRole("PATIENT");
+            }
+            String error = validateRegister(request);
+            if (error == null && !batchNames.add(request.getUsername())) {
+                error = "用户名在本批次中重复";
+            }
+            if (error != null) {
+                result.addFailure(i, error);
+                continue;
+            }
+            validIndexes.add(i);
+            if (usernameBloomFilter.mightContain(request.getUsername())) {
+                possiblyExisting.add(request.getUsername());
+            }
+        }
         
-        // 根据角色创建扩展信息
-        if ("DOCTOR".equals(request.getRole())) {
-            DoctorInfo doctorInfo = new DoctorInfo();
-            doctorInfo.setUserId(user.getId());
-            doctorInfo.setDepartment(request.getDepartment());
-            doctorInfo.setTitle(request.getTitle());
-            doctorInfo.setSpecialty(request.getSpecialty());
-            doctorInfo.setHospital(request.getHospital());
-            doctorInfo.setLicenseNumber(request.getLicenseNumber());
-            doctorInfoMapper.insert(doctorInfo);
-        } else if ("PATIENT".equals(request.getRole())) {
-            PatientInfo patientInfo = new PatientInfo();
-            patientInfo.setUserId(user.getId());
-            patientInfo.setBloodType(request.getBloodType());
-            patientInfo.setMedicalHistory(request.getMedicalHistory());
-            patientInfoMapper.insert(patientInfo);
+        // 只对布隆过滤器判定可能存在的用户名查库，一次查询
+        Set<String> existing = possiblyExisting.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(userMapper.selectExistingUsernames(possiblyExisting));
+        
+        List<Integer> newIndexes = new ArrayList<>(validIndexes.size());
+        List<String> rawPasswords = new ArrayList<>(validIndexes.size());
+        for (Integer index : validIndexes) {
+            RegisterRequest request = requests.get(index);
+            if (existing.contains(request.getUsername())) {
+                result.addFailure(index, "用户名已存在");
+                continue;
+            }
+            newIndexes.add(index);
+            rawPasswords.add(request.getPassword());
+        }
+        
+        // 密码在事务外由加密线程池并行加密，每个用户单独提交，不因个别失败回滚整批
+        List<String> encodedPasswords = passwordHasher.encodeAll(rawPasswords);
+        for (int i = 0; i < newIndexes.size(); i++) {
+            Integer index = newIndexes.get(i);
+            String encodedPassword = encodedPasswords.get(i);
+            if (encodedPassword == null) {
+                result.addFailure(index, "系统繁忙，请稍后重试");
+                continue;
+            }
+            RegisterRequest request = requests.get(index);
+            try {
+                Long userId = transactionTemplate.execute(status -> createUser(request, encodedPassword));
+                result.addSuccess(index, userId);
+            } catch (DuplicateKeyException e) {
+                result.addFailure(index, "用户名已存在");
+            }
         }
+        
+        return result.summarize();
     }
     
     @Override
@@ -87,7 +156,7 @@ public class AuthServiceImpl implements AuthService {
         }
         
         // 验证密码
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHasher.matches(request.getPassword(), user.getPassword())) {
             throw new RuntimeException("用户名或密码错误");
         }
         
@@ -96,6 +165,11 @@ public class AuthServiceImpl implements AuthService {
             throw new RuntimeException("账号已被禁用");
         }
         
+        // 加密强度调整后，通过校验后按新强度重新加密
+        if (passwordHasher.upgradeEncoding(user.getPassword())) {
+            rehashPassword(user, request.getPassword());
+        }
+        
         // 生成Token
         String token = jwtUtil.generateToken(user.getId(), user.getUsername(), user.getRole());
         
@@ -109,12 +183,14 @@ public class AuthServiceImpl implements AuthService {
     
     @Override
     public User getCurrentUser(Long userId) {
-        User user = userMapper.selectById(userId);
-        if (user == null) {
-            throw new RuntimeException("用户不存在");
-        }
-        user.setPassword(null);  // 不返回密码
-        return user;
+        return userCache.getOrLoad(userId, () -> {
+            User user = userMapper.selectById(userId);
+            if (user == null) {
+                throw new RuntimeException("用户不存在");
+            }
+            user.setPassword(null);  // 不返回密码
+            return user;
+        });
     }
     
     @Override
@@ -134,5 +210,63 @@ public class AuthServiceImpl implements AuthService {
         existUser.setAvatar(user.getAvatar());
         
         userMapper.updateById(existUser);
+        userCache.evict(userId);
+    }
+    
+    /**
+     * 创建用户及角色扩展信息，返回用户ID
+     */
+    private Long createUser(RegisterRequest request, String encodedPassword) {
+        User user = new User();
+        user.setUsername(request.getUsername());
+        user.setPassword(encodedPassword);
+        user.setRealName(request.getRealName());
+        user.setGender(request.getGender());
+        user.setAge(request.getAge());
+        user.setPhone(request.getPhone());
+        user.setEmail(request.getEmail());
+        user.setRole(request.getRole());
+        user.setStatus(1);
+        
+        userMapper.insert(user);
+        usernameBloomFilter.put(user.getUsername());
+        
+        // 根据角色创建扩展信息
+        if ("DOCTOR".equals(request.getRole())) {
+            DoctorInfo doctorInfo = new DoctorInfo();
+            doctorInfo.setUserId(user.getId());
+            doctorInfo.setDepartment(request.getDepartment());
+            doctorInfo.setTitle(request.getTitle());
+            doctorInfo.setSpecialty(request.getSpecialty());
+            doctorInfo.setHospital(request.getHospital());
+            doctorInfo.setLicenseNumber(request.getLicenseNumber());
+            doctorInfoMapper.insert(doctorInfo);
+        } else if ("PATIENT".equals(request.getRole())) {
+            PatientInfo patientInfo = new PatientInfo();
+            patientInfo.setUserId(user.getId());
+            patientInfo.setBloodType(request.getBloodType());
+            patientInfo.setMedicalHistory(request.getMedicalHistory());
+            patientInfoMapper.insert(patientInfo);
+        }
+        return user.getId();
+    }
+    
+    private String validateRegister(RegisterRequest request) {
+        if (request == null) {
+            return "注册信息不能为空";
+        }
+        Set<ConstraintViolation<RegisterRequest>> violations = validator.validate(request);
+        return violations.isEmpty() ? null : violations.iterator().next().getMessage();
+    }
+    
+    private void rehashPassword(User user, String rawPassword) {
+        try {
+            User update = new User();
+            update.setId(user.getId());
+            update.setPassword(passwordHasher.encode(rawPassword));
+            userMapper.updateById(update);
+        } catch (Exception e) {
+            log.warn("用户{}密码重新加密失败: {}", user.getId(), e.getMessage());
+        }
     }
 }
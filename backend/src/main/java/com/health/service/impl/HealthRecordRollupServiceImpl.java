@@ -0,0 +1,184 @@
+package com.health.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.health.entity.HealthRecord;
+import com.health.entity.HealthRecordDaily;
+import com.health.entity.User;
+import com.health.mapper.HealthRecordDailyMapper;
+import com.health.mapper.HealthRecordMapper;
+import com.health.mapper.UserMapper;
+import com.health.service.HealthRecordRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 健康记录日汇总服务实现类
+ */
+@Service
+@RequiredArgsConstructor
+public class HealthRecordRollupServiceImpl implements HealthRecordRollupService {
+    
+    private final HealthRecordDailyMapper healthRecordDailyMapper;
+    private final HealthRecordMapper healthRecordMapper;
+    private final UserMapper userMapper;
+    
+    @Override
+    @Transactional
+    public void applyInserted(List<HealthRecord> records) {
+        if (records == null || records.isEmpty()) {
+            return;
+        }
+        
+        // 先在内存中按(用户, 日期)合并增量，每天只写一行
+        Map<String, HealthRecordDaily> deltas = new LinkedHashMap<>();
+        for (HealthRecord record : records) {
+            String key = record.getUserId() + "_" + record.getRecordDate();
+            HealthRecordDaily delta = deltas.computeIfAbsent(key,
+                    k -> emptyDelta(record.getUserId(), record.getRecordDate()));
+            accumulate(delta, record);
+        }
+        
+        healthRecordDailyMapper.upsertDeltas(new ArrayList<>(deltas.values()));
+    }
+    
+    @Override
+    @Transactional
+    public void rebuildDay(Long userId, LocalDate date) {
+        // 最小/最大值无法减量维护，修改和删除时按天重算
+        LambdaQueryWrapper<HealthRecordDaily> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(HealthRecordDaily::getUserId, userId)
+               .eq(HealthRecordDaily::getStatDate, date);
+        healthRecordDailyMapper.delete(wrapper);
+        healthRecordDailyMapper.rebuild(userId, date, date);
+    }
+    
+    @Override
+    @Transactional
+    public void rebuildUser(Long userId, LocalDate startDate, LocalDate endDate) {
+        // 只按(user_id, record_date)索引扫描单个用户的记录，事务短、锁范围小
+        LambdaQueryWrapper<HealthRecordDaily> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(HealthRecordDaily::getUserId, userId)
+               .ge(startDate != null, HealthRecordDaily::getStatDate, startDate)
+               .le(endDate != null, HealthRecordDaily::getStatDate, endDate);
+        healthRecordDailyMapper.delete(wrapper);
+        healthRecordDailyMapper.rebuild(userId, startDate, endDate);
+    }
+    
+    @Override
+    public List<Long> userIdsAfter(Long afterId, int limit) {
+        return userMapper.selectList(new LambdaQueryWrapper<User>()
+                        .select(User::getId)
+                        .gt(User::getId, afterId)
+                        .orderByAsc(User::getId)
+                        .last("LIMIT " + limit))
+                .stream()
+                .map(User::getId)
+                .collect(Collectors.toList());
+    }
+    
+    @Override
+    public HealthRecordDaily summarize(Long userId, LocalDate startDate, LocalDate endDate) {
+        HealthRecordDaily summary = healthRecordDailyMapper.sumByUserAndDateRange(userId, startDate, endDate);
+        if (summary == null || summary.getRecordCount() == null || summary.getRecordCount() == 0) {
+            return null;
+        }
+        return summary;
+    }
+    
+    private HealthRecordDaily emptyDelta(Long userId, LocalDate date) {
+        HealthRecordDaily delta = new HealthRecordDaily();
+        delta.setUserId(userId);
+        delta.setStatDate(date);
+        delta.setRecordCount(0);
+        delta.setSystolicCount(0);
+        delta.setSystolicSum(0L);
+        delta.setDiastolicCount(0);
+        delta.setDiastolicSum(0L);
+        delta.setHeartRateCount(0);
+        delta.setHeartRateSum(0L);
+        delta.setWeightCount(0);
+        delta.setWeightSum(BigDecimal.ZERO);
+        delta.setStepsCount(0);
+        delta.setStepsSum(0L);
+        return delta;
+    }
+    
+    private void accumulate(HealthRecordDaily delta, HealthRecord record) {
+        delta.setRecordCount(delta.getRecordCount() + 1);
+        
+        Integer systolic = record.getSystolicPressure();
+        if (systolic != null) {
+            delta.setSystolicCount(delta.getSystolicCount() + 1);
+            delta.setSystolicSum(delta.getSystolicSum() + systolic);
+            delta.setSystolicMin(min(delta.getSystolicMin(), systolic));
+            delta.setSystolicMax(max(delta.getSystolicMax(), systolic));
+        }
+        
+        Integer diastolic = record.getDiastolicPressure();
+        if (diastolic != null) {
+            delta.setDiastolicCount(delta.getDiastolicCount() + 1);
+            delta.setDiastolicSum(delta.getDiastolicSum() + diastolic);
+            delta.setDiastolicMin(min(delta.getDiastolicMin(), diastolic));
+            delta.setDiastolicMax(max(delta.getDiastolicMax(), diastolic));
+        }
+        
+        Integer heartRate = record.getHeartRate();
+        if (heartRate != null) {
+            delta.setHeartRateCount(delta.getHeartRateCount() + 1);
+            delta.setHeartRateSum(delta.getHeartRateSum() + heartRate);
+            delta.setHeartRateMin(min(delta.getHeartRateMin(), heartRate));
+            delta.setHeartRateMax(max(delta.getHeartRateMax(), heartRate));
+        }
+        
+        BigDecimal weight = record.getWeight();
+        if (weight != null) {
+            delta.setWeightCount(delta.getWeightCount() + 1);
+            delta.setWeightSum(delta.getWeightSum().add(weight));
+            delta.setWeightMin(min(delta.getWeightMin(), weight));
+            delta.setWeightMax(max(delta.getWeightMax(), weight));
+        }
+        
+        Integer steps = record.getSteps();
+        if (steps != null) {
+            delta.setStepsCount(delta.getStepsCount() + 1);
+            delta.setStepsSum(delta.getStepsSum() + steps);
+            delta.setStepsMin(min(delta.getStepsMin(), steps));
+            delta.setStepsMax(max(delta.getStepsMax(), steps));
+        }
+    }
+    
+    private static <T extends Comparable<T>> T min(T current, T value) {
+        return current == null || value.compareTo(current) < 0 ? value : current;
+    }
+    
+    private static <T extends Comparable<T>> T max(T current, T value) {
+        return current == null || value.compareTo(current) > 0 ? value : current;
+    }
+    
+    @Override
+    public LocalDate backfillStartDate(LocalDate before) {
+        List<HealthRecordDaily> rolledUp = healthRecordDailyMapper.selectList(new LambdaQueryWrapper<HealthRecordDaily>()
+                .select(HealthRecordDaily::getId)
+                .lt(HealthRecordDaily::getStatDate, before)
+                .last("LIMIT 1"));
+        if (!rolledUp.isEmpty()) {
+            return null;
+        }
+        HealthRecord first = healthRecordMapper.selectOne(new QueryWrapper<HealthRecord>()
+                .select("MIN(record_date) AS record_date"));
+        if (first == null || first.getRecordDate() == null || !first.getRecordDate().isBefore(before)) {
+            return null;
+        }
+        return first.getRecordDate();
+    }
+}
@@ -1,16 +1,35 @@
 package com.health.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.health.cache.HealthRecordCache;
+import com.health.drools.AlertRuleService;
 import com.health.entity.HealthRecord;
+import com.health.entity.HealthRecordDaily;
 import com.health.mapper.HealthRecordMapper;
+import com.health.service.HealthRecordRollupService;
 import com.health.service.HealthRecordService;
+import com.health.utils.DownsampleUtil;
+import com.health.vo.BatchResult;
+import com.health.vo.CursorPage;
+import com.health.vo.TrendData;
 import lombok.RequiredArgsConstructor;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 /**
  * 健康记录服务实现类
@@ -19,9 +38,24 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class HealthRecordServiceImpl implements HealthRecordService {
     
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss");
+    
     private final HealthRecordMapper healthRecordMapper;
+    private final HealthRecordRollupService rollupService;
+    private final HealthRecordCache healthRecordCache;
+    private final AlertRuleService alertRuleService;
+    
+    @Value("${health-record.batch.max-size:1000}")
+    private Integer batchMaxSize;
+    
+    @Value("${health-record.batch.chunk-size:200}")
+    private Integer batchChunkSize;
+    
+    @Value("${health-record.cursor.max-page-size:100}")
+    private Integer cursorMaxPageSize;
     
     @Override
+    @Transactional
     public void addRecord(HealthRecord record) {
         if (record.getUserId() == null) {
             throw new RuntimeException("用户ID不能为空");
@@ -30,6 +64,54 @@ public class HealthRecordServiceImpl implements HealthRecordService {
             record.setRecordDate(LocalDate.now());
         }
         healthRecordMapper.insert(record);
+        rollupService.applyInserted(Collections.singletonList(record));
+        alertRuleService.submitHealthAlertRules(Collections.singletonList(record));
+        healthRecordCache.evict(record.getUserId());
+    }
+    
+    @Override
+    @Transactional
+    public BatchResult addRecords(List<HealthRecord> records) {
+        if (records == null || records.isEmpty()) {
+            throw new RuntimeException("健康记录不能为空");
+        }
+        if (records.size() > batchMaxSize) {
+            throw new RuntimeException("单次最多提交" + batchMaxSize + "条健康记录");
+        }
+        
+        BatchResult result = new BatchResult();
+        List<HealthRecord> valid = new ArrayList<>(records.size());
+        List<Integer> validIndexes = new ArrayList<>(records.size());
+        
+        for (int i = 0; i < records.size(); i++) {
+            HealthRecord record = records.get(i);
+            String error = validateRecord(record);
+            if (error != null) {
+                result.addFailure(i, error);
+                continue;
+            }
+            if (record.getRecordDate() == null) {
+                record.setRecordDate(LocalDate.now());
+            }
+            valid.add(record);
+            validIndexes.add(i);
+        }
+        
+        // 按块多值插入，每块一次数据库往返
+        for (int from = 0; from < valid.size(); from += batchChunkSize) {
+            int to = Math.min(from + batchChunkSize, valid.size());
+            healthRecordMapper.insertBatch(valid.subList(from, to));
+        }
+        rollupService.applyInserted(valid);
+        // 提交后按用户异步执行预警规则，每个用户一次规则评估、一次预警批量写入
+        alertRuleService.submitHealthAlertRules(valid);
+        valid.stream().map(HealthRecord::getUserId).distinct().forEach(healthRecordCache::evict);
+        
+        for (int i = 0; i < valid.size(); i++) {
+            result.addSuccess(validIndexes.get(i), valid.get(i).getId());
+        }
+        
+        return result.summarize();
     }
     
     @Override
@@ -61,93 +143,269 @@ public class HealthRecordServiceImpl implements HealthRecordService {
     }
     
     @Override
+    public CursorPage<HealthRecord> getRecordListByCursor(Long userId, String cursor, Integer pageSize,
+                                                           LocalDate startDate, LocalDate endDate, boolean withTotal) {
+        int size = pageSize == null ? 10 : Math.min(Math.max(pageSize, 1), cursorMaxPageSize);
+        LambdaQueryWrapper<HealthRecord> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(HealthRecord::getUserId, userId);
+        if (startDate != null) {
+            wrapper.ge(HealthRecord::getRecordDate, startDate);
+        }
+        if (endDate != null) {
+            wrapper.le(HealthRecord::getRecordDate, endDate);
+        }
+        
+        CursorPage<HealthRecord> page = new CursorPage<>();
+        if (withTotal) {
+            page.setTotal(healthRecordMapper.selectCount(wrapper));
+        }
+        
+        if (cursor != null && !cursor.isEmpty()) {
+            applyCursor(wrapper, cursor);
+        }
+        // 多取一条判断是否还有下一页
+        wrapper.orderByDesc(HealthRecord::getRecordDate, HealthRecord::getRecordTime, HealthRecord::getId)
+               .last("LIMIT " + (size + 1));
+        
+        List<HealthRecord> records = healthRecordMapper.selectList(wrapper);
+        boolean hasMore = records.size() > size;
+        if (hasMore) {
+            records = records.subList(0, size);
+        }
+        
+        page.setRecords(records);
+        page.setHasMore(hasMore);
+        if (hasMore) {
+            page.setNextCursor(encodeCursor(records.get(records.size() - 1)));
+        }
+        return page;
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public void streamRecords(Long userId, LocalDate startDate, LocalDate endDate, Consumer<HealthRecord> consumer) {
+        // 游标依赖事务内保持的连接，遍历结束后关闭
+        try (Cursor<HealthRecord> cursor = healthRecordMapper.streamByUser(userId, startDate, endDate)) {
+            cursor.forEach(consumer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    @Override
+    @Transactional
     public void updateRecord(HealthRecord record) {
-        if (healthRecordMapper.selectById(record.getId()) == null) {
+        HealthRecord existRecord = healthRecordMapper.selectById(record.getId());
+        if (existRecord == null) {
             throw new RuntimeException("健康记录不存在");
         }
         healthRecordMapper.updateById(record);
+        
+        // 重算受影响的日汇总，日期变更时新旧两天都要重算
+        rollupService.rebuildDay(existRecord.getUserId(), existRecord.getRecordDate());
+        if (record.getRecordDate() != null && !record.getRecordDate().equals(existRecord.getRecordDate())) {
+            rollupService.rebuildDay(existRecord.getUserId(), record.getRecordDate());
+        }
+        healthRecordCache.evict(existRecord.getUserId());
     }
     
     @Override
+    @Transactional
     public void deleteRecord(Long id) {
+        HealthRecord existRecord = healthRecordMapper.selectById(id);
+        if (existRecord == null) {
+            return;
+        }
         healthRecordMapper.deleteById(id);
+        rollupService.rebuildDay(existRecord.getUserId(), existRecord.getRecordDate());
+        healthRecordCache.evict(existRecord.getUserId());
     }
     
     @Override
     public Map<String, Object> getStatistics(Long userId, Integer days) {
         LocalDate endDate = LocalDate.now();
+        // 窗口随日期滚动，缓存字段带上截止日期
+        return healthRecordCache.getOrLoad("statistics", userId, endDate + ":" + days,
+                new TypeReference<Map<String, Object>>() {},
+                () -> loadStatistics(userId, endDate, days));
+    }
+    
+    private Map<String, Object> loadStatistics(Long userId, LocalDate endDate, Integer days) {
         LocalDate startDate = endDate.minusDays(days - 1);
         
-        LambdaQueryWrapper<HealthRecord> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(HealthRecord::getUserId, userId)
-               .ge(HealthRecord::getRecordDate, startDate)
-               .le(HealthRecord::getRecordDate, endDate);
-        
-        List<HealthRecord> records = healthRecordMapper.selectList(wrapper);
+        // 从日汇总表计算，每天最多一行
+        HealthRecordDaily summary = rollupService.summarize(userId, startDate, endDate);
         
         Map<String, Object> statistics = new HashMap<>();
-        statistics.put("totalRecords", records.size());
+        statistics.put("totalRecords", summary == null ? 0 : summary.getRecordCount());
         
-        if (!records.isEmpty()) {
+        if (summary != null) {
             // 计算平均值
-            statistics.put("avgSystolicPressure", calculateAverage(records, r -> r.getSystolicPressure()));
-            statistics.put("avgDiastolicPressure", calculateAverage(records, r -> r.getDiastolicPressure()));
-            statistics.put("avgHeartRate", calculateAverage(records, r -> r.getHeartRate()));
-            statistics.put("avgWeight", calculateAverage(records, r -> r.getWeight()));
-            statistics.put("avgSteps", calculateAverage(records, r -> r.getSteps()));
+            statistics.put("avgSystolicPressure", calculateAverage(summary.getSystolicSum(), summary.getSystolicCount()));
+            statistics.put("avgDiastolicPressure", calculateAverage(summary.getDiastolicSum(), summary.getDiastolicCount()));
+            statistics.put("avgHeartRate", calculateAverage(summary.getHeartRateSum(), summary.getHeartRateCount()));
+            statistics.put("avgWeight", calculateAverage(summary.getWeightSum(), summary.getWeightCount()));
+            statistics.put("avgSteps", calculateAverage(summary.getStepsSum(), summary.getStepsCount()));
         }
         
         return statistics;
     }
     
     @Override
-    public List<Map<String, Object>> getTrendData(Long userId, String indicator, Integer days) {
+    public TrendData getTrendData(Long userId, String indicator, Integer days, Integer maxPoints) {
         LocalDate endDate = LocalDate.now();
+        SFunction<HealthRecord, ?> column = indicatorColumn(indicator);
+        return healthRecordCache.getOrLoad("trend", userId, indicator + ":" + endDate + ":" + days + ":" + maxPoints,
+                new TypeReference<TrendData>() {},
+                () -> loadTrendData(userId, indicator, column, endDate, days, maxPoints));
+    }
+    
+    private TrendData loadTrendData(Long userId, String indicator, SFunction<HealthRecord, ?> column,
+                                    LocalDate endDate, Integer days, Integer maxPoints) {
         LocalDate startDate = endDate.minusDays(days - 1);
+        boolean bloodPressure = "bloodPressure".equals(indicator);
         
+        // 只查询时间列和所需指标列
         LambdaQueryWrapper<HealthRecord> wrapper = new LambdaQueryWrapper<>();
+        if (bloodPressure) {
+            wrapper.select(HealthRecord::getRecordDate, HealthRecord::getRecordTime,
+                           HealthRecord::getSystolicPressure, HealthRecord::getDiastolicPressure);
+        } else {
+            wrapper.select(HealthRecord::getRecordDate, HealthRecord::getRecordTime, column);
+        }
         wrapper.eq(HealthRecord::getUserId, userId)
                .ge(HealthRecord::getRecordDate, startDate)
                .le(HealthRecord::getRecordDate, endDate)
-               .orderByAsc(HealthRecord::getRecordDate);
+               .isNotNull(column)
+               .orderByAsc(HealthRecord::getRecordDate, HealthRecord::getRecordTime, HealthRecord::getId);
         
         List<HealthRecord> records = healthRecordMapper.selectList(wrapper);
         
-        return records.stream().map(record -> {
-            Map<String, Object> data = new HashMap<>();
-            data.put("date", record.getRecordDate());
-            
-            switch (indicator) {
-                case "bloodPressure":
-                    data.put("systolic", record.getSystolicPressure());
-                    data.put("diastolic", record.getDiastolicPressure());
-                    break;
-                case "heartRate":
-                    data.put("value", record.getHeartRate());
-                    break;
-                case "bloodSugar":
-                    data.put("value", record.getBloodSugar());
-                    break;
-                case "weight":
-                    data.put("value", record.getWeight());
-                    break;
-                case "steps":
-                    data.put("value", record.getSteps());
-                    break;
-                default:
-                    break;
+        // 以记录时刻为横轴、主指标为纵轴降采样，血压两条曲线共用收缩压选出的点
+        int size = records.size();
+        double[] x = new double[size];
+        double[] y = new double[size];
+        for (int i = 0; i < size; i++) {
+            HealthRecord record = records.get(i);
+            LocalTime time = record.getRecordTime() == null ? LocalTime.MIDNIGHT : record.getRecordTime();
+            x[i] = record.getRecordDate().atTime(time).toEpochSecond(ZoneOffset.UTC);
+            y[i] = ((Number) column.apply(record)).doubleValue();
+        }
+        int[] picked = DownsampleUtil.lttb(x, y, maxPoints == null ? 0 : maxPoints);
+        
+        TrendData trendData = new TrendData();
+        trendData.setIndicator(indicator);
+        trendData.setTotalPoints(size);
+        if (bloodPressure) {
+            trendData.setSystolic(new ArrayList<>(picked.length));
+            trendData.setDiastolic(new ArrayList<>(picked.length));
+        } else {
+            trendData.setValues(new ArrayList<>(picked.length));
+        }
+        
+        for (int index : picked) {
+            HealthRecord record = records.get(index);
+            trendData.getDates().add(record.getRecordDate().toString());
+            trendData.getTimes().add(record.getRecordTime() == null ? null : record.getRecordTime().format(TIME_FORMATTER));
+            if (bloodPressure) {
+                trendData.getSystolic().add(record.getSystolicPressure());
+                trendData.getDiastolic().add(record.getDiastolicPressure());
+            } else {
+                trendData.getValues().add((Number) column.apply(record));
             }
-            
-            return data;
-        }).collect(Collectors.toList());
-    }
-    
-    private Double calculateAverage(List<HealthRecord> records, java.util.function.Function<HealthRecord, Number> extractor) {
-        return records.stream()
-                      .map(extractor)
-                      .filter(Objects::nonNull)
-                      .mapToDouble(Number::doubleValue)
-                      .average()
-                      .orElse(0.0);
+        }
+        
+        return trendData;
+    }
+    
+    /**
+     * 趋势指标对应的数据列，血压以收缩压为主列
+     */
+    private SFunction<HealthRecord, ?> indicatorColumn(String indicator) {
+        switch (indicator) {
+            case "bloodPressure":
+                return HealthRecord::getSystolicPressure;
+            case "heartRate":
+                return HealthRecord::getHeartRate;
+            case "bloodSugar":
+                return HealthRecord::getBloodSugar;
+            case "weight":
+                return HealthRecord::getWeight;
+            case "steps":
+                return HealthRecord::getSteps;
+            default:
+                throw new RuntimeException("不支持的趋势指标: " + indicator);
+        }
+    }
+    
+    /**
+     * 追加游标条件，取排在游标记录之后的行
+     * 倒序时record_time为NULL的行排在当天最后
+     */
+    private void applyCursor(LambdaQueryWrapper<HealthRecord> wrapper, String cursor) {
+        String[] parts;
+        LocalDate date;
+        LocalTime time;
+        Long id;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", -1);
+            date = LocalDate.parse(parts[0]);
+            time = parts[1].isEmpty() ? null : LocalTime.parse(parts[1]);
+            id = Long.valueOf(parts[2]);
+        } catch (Exception e) {
+            throw new RuntimeException("分页游标无效");
+        }
+        
+        wrapper.and(w -> w.lt(HealthRecord::getRecordDate, date)
+                          .or(sameDay -> {
+                              sameDay.eq(HealthRecord::getRecordDate, date);
+                              if (time == null) {
+                                  sameDay.isNull(HealthRecord::getRecordTime)
+                                         .lt(HealthRecord::getId, id);
+                              } else {
+                                  sameDay.and(t -> t.lt(HealthRecord::getRecordTime, time)
+                                                    .or(sameTime -> sameTime.eq(HealthRecord::getRecordTime, time)
+                                                                            .lt(HealthRecord::getId, id))
+                                                    .or()
+                                                    .isNull(HealthRecord::getRecordTime));
+                              }
+                          }));
+    }
+    
+    private String encodeCursor(HealthRecord last) {
+        String raw = last.getRecordDate() + "|"
+                + (last.getRecordTime() == null ? "" : last.getRecordTime().format(TIME_FORMATTER)) + "|"
+                + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 校验单条健康记录，返回错误信息，校验通过返回null
+     */
+    private String validateRecord(HealthRecord record) {
+        if (record == null) {
+            return "健康记录不能为空";
+        }
+        if (record.getUserId() == null) {
+            return "用户ID不能为空";
+        }
+        if (record.getRecordDate() != null && record.getRecordDate().isAfter(LocalDate.now())) {
+            return "记录日期不能晚于今天";
+        }
+        if (record.getSystolicPressure() == null && record.getDiastolicPressure() == null
+                && record.getHeartRate() == null && record.getBloodSugar() == null
+                && record.getWeight() == null && record.getTemperature() == null
+                && record.getBloodOxygen() == null && record.getSteps() == null
+                && record.getSleepHours() == null) {
+            return "至少需要填写一项健康指标";
+        }
+        return null;
+    }
+    
+    private Double calculateAverage(Number sum, Integer count) {
+        if (sum == null || count == null || count == 0) {
+            return 0.0;
+        }
+        return sum.doubleValue() / count;
     }
 }
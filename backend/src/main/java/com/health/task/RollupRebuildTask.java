@@ -0,0 +1,95 @@
+package com.health.task;
+
+import com.health.service.HealthRecordRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 日汇总重算任务
+ * 定期从原始记录重算最近若干天的日汇总，校正增量维护可能产生的偏差；
+ * 启动时日汇总缺少历史数据（如已有库首次部署）则回填全部历史。
+ * 按用户逐个重算，每个用户一个短事务，避免全表INSERT…SELECT长时间锁住原始记录阻塞写入
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RollupRebuildTask {
+    
+    private final HealthRecordRollupService rollupService;
+    
+    @Value("${task.rollup-rebuild.days:7}")
+    private Integer days;
+    
+    @Value("${task.rollup-rebuild.backfill-on-startup:true}")
+    private boolean backfillOnStartup;
+    
+    @Value("${task.rollup-rebuild.user-batch-size:500}")
+    private Integer userBatchSize;
+    
+    @Scheduled(cron = "${task.rollup-rebuild.cron:0 30 2 * * ?}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        // days不大于0时重算全部历史
+        LocalDate startDate = days > 0 ? LocalDate.now().minusDays(days - 1) : null;
+        int users = rebuildAllUsers(startDate);
+        log.info("日汇总重算完成: startDate={}, 用户数={}, 耗时{}ms", startDate, users, System.currentTimeMillis() - start);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        Thread thread = new Thread(this::backfill, "rollup-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    private void backfill() {
+        try {
+            // 最近几天由定时重算和增量维护覆盖，只检查更早的历史
+            LocalDate before = LocalDate.now().minusDays(Math.max(days, 1));
+            LocalDate first = rollupService.backfillStartDate(before);
+            if (first == null) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            log.info("日汇总缺少{}之前的数据，开始回填", before);
+            int users = rebuildAllUsers(first);
+            log.info("日汇总回填完成: startDate={}, 用户数={}, 耗时{}ms", first, users, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("日汇总回填失败，可将task.rollup-rebuild.days设为0执行全量重算", e);
+        }
+    }
+    
+    /**
+     * 按用户ID分批遍历，逐个用户重算，单个用户失败不影响其他用户
+     *
+     * @return 处理的用户数
+     */
+    private int rebuildAllUsers(LocalDate startDate) {
+        int users = 0;
+        Long afterId = 0L;
+        List<Long> userIds;
+        while (!(userIds = rollupService.userIdsAfter(afterId, userBatchSize)).isEmpty()) {
+            for (Long userId : userIds) {
+                try {
+                    rollupService.rebuildUser(userId, startDate, null);
+                } catch (Exception e) {
+                    log.warn("用户日汇总重算失败: userId={}, {}", userId, e.getMessage());
+                }
+            }
+            users += userIds.size();
+            afterId = userIds.get(userIds.size() - 1);
+        }
+        return users;
+    }
+}
@@ -0,0 +1,93 @@
+package com.health.task;
+
+import com.health.drools.RuleModuleLoader;
+import com.health.drools.RuleSetManager;
+import com.health.drools.RuleSetStore;
+import com.health.entity.AlertRuleSet;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 规则重载任务
+ * 定期检查规则库中最新上传的规则集和规则目录下的DRL，内容变化时提交规则集重载
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RuleReloadTask {
+    
+    private final RuleSetManager ruleSetManager;
+    private final RuleSetStore ruleSetStore;
+    
+    @Value("${drools.reload.watch-dir:}")
+    private String watchDir;
+    
+    private volatile Long loadedRuleSetId;
+    
+    @Scheduled(fixedDelayString = "${drools.reload.poll-interval-ms:5000}")
+    public void scan() {
+        loadStored();
+        scanWatchDir();
+    }
+    
+    /**
+     * 加载规则库中的最新规则集，沿用上传时的版本号，启动后首次执行即恢复上传过的规则
+     */
+    private void loadStored() {
+        Long latestId;
+        try {
+            latestId = ruleSetStore.latestId();
+        } catch (Exception e) {
+            log.warn("读取规则库失败: {}", e.getMessage());
+            return;
+        }
+        if (latestId == null || latestId.equals(loadedRuleSetId)) {
+            return;
+        }
+        AlertRuleSet stored = ruleSetStore.get(latestId);
+        loadedRuleSetId = latestId;
+        if (stored == null || ruleSetManager.isKnownFingerprint(stored.getFingerprint())) {
+            return;
+        }
+        ruleSetManager.reload(ruleSetStore.drlFilesOf(stored), "规则库 #" + latestId, stored.getVersion());
+    }
+    
+    private void scanWatchDir() {
+        if (watchDir == null || watchDir.isEmpty()) {
+            return;
+        }
+        Path dir = Paths.get(watchDir);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        
+        Map<String, byte[]> drlFiles = new TreeMap<>();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            List<Path> drlPaths = paths.filter(p -> p.toString().endsWith(".drl")).collect(Collectors.toList());
+            for (Path path : drlPaths) {
+                drlFiles.put(dir.relativize(path).toString().replace('\\', '/'), Files.readAllBytes(path));
+            }
+        } catch (IOException e) {
+            log.warn("读取规则目录失败: {}", watchDir, e);
+            return;
+        }
+        
+        if (drlFiles.isEmpty() || ruleSetManager.isKnownFingerprint(RuleModuleLoader.fingerprint(drlFiles))) {
+            return;
+        }
+        ruleSetManager.reload(drlFiles, "目录 " + watchDir);
+    }
+}
@@ -0,0 +1,30 @@
+package com.health.task;
+
+import com.health.chat.UnreadCounter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 聊天未读数重算任务
+ * 定期按数据库中的消息重算Redis中的未读数并补齐联系人
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UnreadReconcileTask {
+    
+    private final UnreadCounter unreadCounter;
+    
+    @Scheduled(cron = "${task.unread-reconcile.cron:0 15 * * * ?}")
+    public void reconcile() {
+        long start = System.currentTimeMillis();
+        try {
+            int users = unreadCounter.reconcile();
+            log.info("未读数和联系人重算完成: {}个用户有未读消息, 耗时{}ms", users, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("未读数重算失败", e);
+        }
+    }
+}
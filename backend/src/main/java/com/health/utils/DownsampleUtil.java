@@ -0,0 +1,69 @@
+package com.health.utils;
+
+/**
+ * 时间序列降采样工具类
+ */
+public final class DownsampleUtil {
+    
+    private DownsampleUtil() {
+    }
+    
+    /**
+     * LTTB(Largest-Triangle-Three-Buckets)降采样，保留曲线形状
+     * 返回被选中点的下标（升序），首尾两点始终保留
+     *
+     * @param x         横坐标，需升序
+     * @param y         纵坐标
+     * @param threshold 目标点数，小于3或不小于原始点数时不采样
+     */
+    public static int[] lttb(double[] x, double[] y, int threshold) {
+        int n = x.length;
+        if (threshold < 3 || threshold >= n) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        
+        int[] sampled = new int[threshold];
+        int sampledIndex = 0;
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = 0;
+        sampled[sampledIndex++] = a;
+        
+        for (int i = 0; i < threshold - 2; i++) {
+            // 下一个桶的平均点
+            int avgStart = (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min((int) Math.floor((i + 2) * every) + 1, n);
+            double avgX = 0;
+            double avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += x[j];
+                avgY += y[j];
+            }
+            int avgLength = avgEnd - avgStart;
+            avgX /= avgLength;
+            avgY /= avgLength;
+            
+            // 当前桶中与上一选中点、下一桶平均点构成三角形面积最大的点
+            int rangeStart = (int) Math.floor(i * every) + 1;
+            int rangeEnd = (int) Math.floor((i + 1) * every) + 1;
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((x[a] - avgX) * (y[j] - y[a]) - (x[a] - x[j]) * (avgY - y[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            
+            sampled[sampledIndex++] = next;
+            a = next;
+        }
+        
+        sampled[sampledIndex] = n - 1;
+        return sampled;
+    }
+}
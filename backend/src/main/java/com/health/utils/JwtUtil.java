@@ -1,16 +1,22 @@
 package com.health.utils;
 
+import com.health.security.LoginUser;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -19,12 +25,45 @@ import java.util.Map;
 @Component
 public class JwtUtil {
     
+    /**
+     * 已验证Token缓存的分段数，各段独立加锁，须为2的幂
+     */
+    private static final int CACHE_STRIPES = 16;
+    
     @Value("${jwt.secret}")
     private String secret;
     
     @Value("${jwt.expiration}")
     private Long expiration;
     
+    @Value("${jwt.cache.max-size:10000}")
+    private Integer cacheMaxSize;
+    
+    private SecretKey key;
+    private JwtParser parser;
+    
+    /**
+     * 已验证Token缓存，过期时间与Token一致；按Token哈希分段，每段是独立加锁的LRU，
+     * 并发请求分散到不同段，超出该段上限时淘汰段内最久未使用的Token
+     */
+    private List<Map<String, VerifiedToken>> verifiedTokens;
+    
+    @PostConstruct
+    public void init() {
+        key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder().setSigningKey(key).build();
+        int stripeMaxSize = Math.max(1, cacheMaxSize / CACHE_STRIPES);
+        verifiedTokens = new ArrayList<>(CACHE_STRIPES);
+        for (int i = 0; i < CACHE_STRIPES; i++) {
+            verifiedTokens.add(new LinkedHashMap<String, VerifiedToken>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+                    return size() > stripeMaxSize;
+                }
+            });
+        }
+    }
+    
     /**
      * 生成Token
      */
@@ -34,8 +73,6 @@ public class JwtUtil {
         claims.put("username", username);
         claims.put("role", role);
         
-        SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-        
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(username)
@@ -49,36 +86,62 @@ public class JwtUtil {
      * 解析Token
      */
     public Claims parseToken(String token) {
-        SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+    
+    /**
+     * 验证Token并返回登录用户，同一Token在过期前只验签一次
+     * Token无效或已过期时抛出异常
+     */
+    public LoginUser verify(String token) {
+        long now = System.currentTimeMillis();
+        Map<String, VerifiedToken> stripe = stripeOf(token);
+        synchronized (stripe) {
+            VerifiedToken cached = stripe.get(token);
+            if (cached != null) {
+                if (cached.expiresAt > now) {
+                    return cached.loginUser;
+                }
+                stripe.remove(token);
+            }
+        }
+        
+        // 验签在锁外进行
+        Claims claims = parseToken(token);
+        LoginUser loginUser = new LoginUser(
+                Long.valueOf(claims.get("userId").toString()),
+                claims.getSubject(),
+                claims.get("role").toString());
+        synchronized (stripe) {
+            stripe.put(token, new VerifiedToken(loginUser, claims.getExpiration().getTime()));
+        }
+        return loginUser;
+    }
+    
+    private Map<String, VerifiedToken> stripeOf(String token) {
+        int hash = token.hashCode();
+        return verifiedTokens.get((hash ^ (hash >>> 16)) & (CACHE_STRIPES - 1));
     }
     
     /**
      * 从Token获取用户ID
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims = parseToken(token);
-        return Long.valueOf(claims.get("userId").toString());
+        return verify(token).getUserId();
     }
     
     /**
      * 从Token获取用户名
      */
     public String getUsernameFromToken(String token) {
-        Claims claims = parseToken(token);
-        return claims.getSubject();
+        return verify(token).getUsername();
     }
     
     /**
      * 从Token获取角色
      */
     public String getRoleFromToken(String token) {
-        Claims claims = parseToken(token);
-        return claims.get("role").toString();
+        return verify(token).getRole();
     }
     
     /**
@@ -98,9 +161,21 @@ public class JwtUtil {
      */
     public boolean validateToken(String token) {
         try {
-            return !isTokenExpired(token);
+            verify(token);
+            return true;
         } catch (Exception e) {
             return false;
         }
     }
+    
+    private static class VerifiedToken {
+        
+        private final LoginUser loginUser;
+        private final long expiresAt;
+        
+        private VerifiedToken(LoginUser loginUser, long expiresAt) {
+            this.loginUser = loginUser;
+            this.expiresAt = expiresAt;
+        }
+    }
 }
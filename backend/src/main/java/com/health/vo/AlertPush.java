@@ -0,0 +1,25 @@
+package com.health.vo;
+
+import com.health.entity.HealthAlert;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预警推送，合并窗口内同一患者的预警
+ */
+@Data
+public class AlertPush implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private Long patientId;
+    
+    private Integer alertCount;  // 窗口内新预警总数
+    
+    private Integer maxLevel;  // 窗口内最高预警级别
+    
+    private List<HealthAlert> alerts = new ArrayList<>();  // 最新的若干条，超出上限时截断
+}
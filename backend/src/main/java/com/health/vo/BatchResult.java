@@ -0,0 +1,58 @@
+package com.health.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量操作结果类
+ */
+@Data
+public class BatchResult implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private Integer total;
+    private Integer successCount;
+    private Integer failureCount;
+    private List<Item> items = new ArrayList<>();
+    
+    public void addSuccess(int index, Long id) {
+        items.add(new Item(index, id, true, null));
+    }
+    
+    public void addFailure(int index, String message) {
+        items.add(new Item(index, null, false, message));
+    }
+    
+    /**
+     * 统计成功与失败数量，并按原始下标排序
+     */
+    public BatchResult summarize() {
+        items.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        total = items.size();
+        successCount = (int) items.stream().filter(Item::getSuccess).count();
+        failureCount = total - successCount;
+        return this;
+    }
+    
+    /**
+     * 单条记录的处理结果
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item implements Serializable {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private Integer index;
+        private Long id;
+        private Boolean success;
+        private String message;
+    }
+}
@@ -0,0 +1,30 @@
+package com.health.vo;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 聊天消息发送确认
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatAck implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public static final String PERSISTED = "PERSISTED";
+    public static final String FAILED = "FAILED";
+    
+    private String clientMsgId;
+    
+    @JsonSerialize(using = ToStringSerializer.class)
+    private Long messageId;
+    
+    private String status;  // PERSISTED-已保存 FAILED-保存失败
+}
@@ -0,0 +1,31 @@
+package com.health.vo;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 聊天联系人，含会话未读数
+ */
+@Data
+public class ChatContact implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private Long userId;
+    
+    private String username;
+    
+    private String realName;
+    
+    private String avatar;
+    
+    private String role;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime lastMessageTime;
+    
+    private Long unreadCount;
+}
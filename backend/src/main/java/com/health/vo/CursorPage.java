@@ -0,0 +1,24 @@
+package com.health.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 游标分页结果类
+ */
+@Data
+public class CursorPage<T> implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private List<T> records = new ArrayList<>();
+    
+    private String nextCursor;  // 下一页游标，没有更多数据时为null
+    
+    private Boolean hasMore;
+    
+    private Long total;  // 仅在请求总数时返回
+}
@@ -0,0 +1,30 @@
+package com.health.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 趋势数据类，按列存放，各数组下标一一对应
+ */
+@Data
+public class TrendData implements Serializable {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private String indicator;
+    
+    private Integer totalPoints;  // 采样前的数据点数
+    
+    private List<String> dates = new ArrayList<>();  // yyyy-MM-dd
+    
+    private List<String> times = new ArrayList<>();  // HH:mm:ss，未记录时间为null
+    
+    private List<Number> values;  // 单值指标
+    
+    private List<Number> systolic;  // 血压-收缩压
+    
+    private List<Number> diastolic;  // 血压-舒张压
+}
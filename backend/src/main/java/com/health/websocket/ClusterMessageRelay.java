@@ -0,0 +1,134 @@
+package com.health.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * WebSocket消息集群转发
+ * 发给用户的消息先投递本节点会话，再只转发到持有该用户会话的节点（每个节点一个Redis频道）；
+ * 广播主题消息通过公共频道发给所有节点。未启用集群时只投递本节点
+ */
+@Slf4j
+@Component
+public class ClusterMessageRelay implements MessageListener {
+    
+    private static final String NODE_CHANNEL_PREFIX = "health:ws:relay:";
+    private static final String BROADCAST_CHANNEL = "health:ws:relay:broadcast";
+    
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SimpUserRegistry simpUserRegistry;
+    private final WebSocketSessionRegistry sessionRegistry;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Counter publishedCounter;
+    private final Counter receivedCounter;
+    
+    public ClusterMessageRelay(SimpMessagingTemplate messagingTemplate,
+                               SimpUserRegistry simpUserRegistry,
+                               WebSocketSessionRegistry sessionRegistry,
+                               StringRedisTemplate redisTemplate,
+                               RedisMessageListenerContainer listenerContainer,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.simpUserRegistry = simpUserRegistry;
+        this.sessionRegistry = sessionRegistry;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.publishedCounter = meterRegistry.counter("health.ws.relay.published");
+        this.receivedCounter = meterRegistry.counter("health.ws.relay.received");
+        if (sessionRegistry.isClusterEnabled()) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(NODE_CHANNEL_PREFIX + sessionRegistry.getNodeId()));
+            listenerContainer.addMessageListener(this, new ChannelTopic(BROADCAST_CHANNEL));
+        }
+    }
+    
+    /**
+     * 发送到用户目的地，如/queue/chat.messages
+     */
+    public void sendToUser(Long userId, String destination, Object payload) {
+        String user = String.valueOf(userId);
+        if (simpUserRegistry.getUser(user) != null) {
+            messagingTemplate.convertAndSendToUser(user, destination, payload);
+        }
+        if (!sessionRegistry.isClusterEnabled()) {
+            return;
+        }
+        try {
+            Set<String> nodes = sessionRegistry.remoteNodesOf(userId);
+            if (nodes.isEmpty()) {
+                return;
+            }
+            String envelope = envelope(user, destination, payload);
+            for (String node : nodes) {
+                redisTemplate.convertAndSend(NODE_CHANNEL_PREFIX + node, envelope);
+                publishedCounter.increment();
+            }
+        } catch (Exception e) {
+            log.warn("WebSocket消息转发失败: userId={}, destination={}, {}", userId, destination, e.getMessage());
+        }
+    }
+    
+    /**
+     * 发送到广播主题，如/topic/notice
+     */
+    public void sendToTopic(String destination, Object payload) {
+        messagingTemplate.convertAndSend(destination, payload);
+        if (!sessionRegistry.isClusterEnabled()) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(BROADCAST_CHANNEL, envelope(null, destination, payload));
+            publishedCounter.increment();
+        } catch (Exception e) {
+            log.warn("WebSocket广播转发失败: destination={}, {}", destination, e.getMessage());
+        }
+    }
+    
+    /**
+     * 收到其他节点转发的消息，投递本节点会话
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            JsonNode envelope = objectMapper.readTree(new String(message.getBody(), StandardCharsets.UTF_8));
+            if (sessionRegistry.getNodeId().equals(envelope.path("origin").asText())) {
+                return;
+            }
+            receivedCounter.increment();
+            String destination = envelope.path("destination").asText();
+            JsonNode payload = envelope.path("payload");
+            if (envelope.hasNonNull("user")) {
+                messagingTemplate.convertAndSendToUser(envelope.path("user").asText(), destination, payload);
+            } else {
+                messagingTemplate.convertAndSend(destination, payload);
+            }
+        } catch (Exception e) {
+            log.warn("处理WebSocket转发消息失败: {}", e.getMessage());
+        }
+    }
+    
+    private String envelope(String user, String destination, Object payload) throws Exception {
+        ObjectNode envelope = objectMapper.createObjectNode();
+        envelope.put("origin", sessionRegistry.getNodeId());
+        envelope.put("user", user);
+        envelope.put("destination", destination);
+        envelope.set("payload", objectMapper.valueToTree(payload));
+        return objectMapper.writeValueAsString(envelope);
+    }
+}
@@ -0,0 +1,299 @@
+package com.health.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WebSocket出站流量控制
+ * 统计每个会话已出站未发出的字节数，会话变慢时非关键消息按目的地丢弃或只保留最新一条，
+ * 关键消息（预警、聊天）始终发送；超过发送缓冲或发送时间上限的会话由Spring断开，客户端重连后补发。
+ * 出站线程池排满拒绝时，非关键消息计为丢弃，关键消息所在会话被断开，同样由客户端重连补发
+ */
+@Slf4j
+@Component
+public class OutboundFlowControl implements ChannelInterceptor, WebSocketHandlerDecoratorFactory {
+    
+    private static final String ORIGINAL_DESTINATION = "simpOrigDestination";
+    
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    private final String[] criticalDestinations;
+    private final String[] conflateDestinations;
+    private final long slowQueuedBytes;
+    private final long slowSendMs;
+    private final Counter droppedCounter;
+    private final Counter conflatedCounter;
+    private final Counter evictedCounter;
+    private volatile MessageChannel outboundChannel;
+    
+    public OutboundFlowControl(@Value("${websocket.outbound.critical-destinations:/queue/alerts,/queue/chat.}") String[] criticalDestinations,
+                               @Value("${websocket.outbound.conflate-destinations:/topic/}") String[] conflateDestinations,
+                               @Value("${websocket.outbound.slow-consumer.queued-bytes:131072}") Long slowQueuedBytes,
+                               @Value("${websocket.outbound.slow-consumer.send-ms:2000}") Long slowSendMs,
+                               MeterRegistry meterRegistry) {
+        this.criticalDestinations = criticalDestinations;
+        this.conflateDestinations = conflateDestinations;
+        this.slowQueuedBytes = slowQueuedBytes;
+        this.slowSendMs = slowSendMs;
+        this.droppedCounter = meterRegistry.counter("health.ws.outbound.skipped", "policy", "drop");
+        this.conflatedCounter = meterRegistry.counter("health.ws.outbound.skipped", "policy", "conflate");
+        this.evictedCounter = meterRegistry.counter("health.ws.sessions.evicted");
+        meterRegistry.gauge("health.ws.sessions.active", sessions, Map::size);
+        meterRegistry.gauge("health.ws.outbound.queued.bytes", sessions,
+                s -> s.values().stream().mapToLong(state -> state.queuedBytes.get()).sum());
+    }
+    
+    /**
+     * 出站通道拦截：慢会话的非关键消息在进入发送线程池前丢弃或合并
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+        SessionState state = sessions.get(String.valueOf(SimpMessageHeaderAccessor.getSessionId(message.getHeaders())));
+        if (state == null) {
+            return message;
+        }
+        outboundChannel = channel;
+        
+        String destination = destinationOf(message);
+        if (!matches(destination, criticalDestinations) && state.isSlow()) {
+            if (matches(destination, conflateDestinations)) {
+                state.conflate(destination, message);
+                conflatedCounter.increment();
+            } else {
+                droppedCounter.increment();
+            }
+            return null;
+        }
+        state.queuedBytes.addAndGet(payloadLength(message));
+        return message;
+    }
+    
+    /**
+     * 未能进入发送线程池的消息（线程池排满拒绝）退回已计入的字节数
+     */
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        if (sent && ex == null) {
+            return;
+        }
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return;
+        }
+        SessionState state = sessions.get(String.valueOf(SimpMessageHeaderAccessor.getSessionId(message.getHeaders())));
+        if (state == null) {
+            return;
+        }
+        int length = payloadLength(message);
+        state.queuedBytes.updateAndGet(queued -> Math.max(0, queued - length));
+        
+        if (!matches(destinationOf(message), criticalDestinations)) {
+            droppedCounter.increment();
+            return;
+        }
+        // 关键消息不能静默丢失，断开会话让客户端重连后通过/app/chat.replay和/app/alerts.replay从库中补发
+        WebSocketSession session = state.session;
+        if (session != null && session.isOpen()) {
+            log.warn("出站线程池已满，关键消息无法发送，断开会话: sessionId={}", session.getId());
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException e) {
+                log.warn("断开会话失败: sessionId={}, {}", session.getId(), e.getMessage());
+            }
+        }
+    }
+    
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                SessionState state = new SessionState();
+                TrackingSession tracking = new TrackingSession(session, state);
+                state.session = tracking;
+                sessions.put(session.getId(), state);
+                super.afterConnectionEstablished(tracking);
+            }
+            
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+    
+    private String destinationOf(Message<?> message) {
+        // 用户目的地取解析前的地址，如/user/queue/alerts
+        Object original = message.getHeaders().get(ORIGINAL_DESTINATION);
+        String destination = original != null ? original.toString()
+                : SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null) {
+            return "";
+        }
+        return destination.startsWith("/user/") ? destination.substring("/user".length()) : destination;
+    }
+    
+    private boolean matches(String destination, String[] prefixes) {
+        for (String prefix : prefixes) {
+            if (!prefix.isEmpty() && destination.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 会话恢复后补发合并的消息，重新经过出站通道
+     */
+    private void flushConflated(SessionState state) {
+        MessageChannel channel = outboundChannel;
+        if (channel == null) {
+            return;
+        }
+        for (Message<?> message : state.drainConflated()) {
+            try {
+                channel.send(message);
+            } catch (Exception e) {
+                log.warn("补发合并消息失败: {}", e.getMessage());
+            }
+        }
+    }
+    
+    private static int payloadLength(Message<?> message) {
+        Object payload = message.getPayload();
+        return payload instanceof byte[] ? ((byte[]) payload).length : 0;
+    }
+    
+    /**
+     * STOMP帧的消息体字节数，与出站消息载荷对应
+     */
+    private static int bodyLength(WebSocketMessage<?> message) {
+        if (!(message instanceof TextMessage)) {
+            return 0;
+        }
+        String frame = ((TextMessage) message).getPayload();
+        int start = frame.indexOf("\n\n");
+        if (start < 0) {
+            return 0;
+        }
+        int end = frame.length();
+        if (end > start + 2 && frame.charAt(end - 1) == '\0') {
+            end--;
+        }
+        int length = 0;
+        for (int i = start + 2; i < end; i++) {
+            char c = frame.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+    
+    private class SessionState {
+        
+        private final AtomicLong queuedBytes = new AtomicLong();
+        private final Map<String, Message<?>> conflated = new LinkedHashMap<>();
+        private volatile WebSocketSession session;
+        private volatile long sendStartedAt;
+        
+        private boolean isSlow() {
+            long started = sendStartedAt;
+            return queuedBytes.get() > slowQueuedBytes
+                    || (started > 0 && System.currentTimeMillis() - started > slowSendMs);
+        }
+        
+        private void conflate(String destination, Message<?> message) {
+            synchronized (conflated) {
+                conflated.put(destination, message);
+            }
+        }
+        
+        private List<Message<?>> drainConflated() {
+            synchronized (conflated) {
+                List<Message<?>> messages = new ArrayList<>(conflated.values());
+                conflated.clear();
+                return messages;
+            }
+        }
+        
+        private boolean hasConflated() {
+            synchronized (conflated) {
+                return !conflated.isEmpty();
+            }
+        }
+    }
+    
+    /**
+     * 位于Spring的并发发送装饰器内侧，记录实际发出的字节数和发送耗时
+     */
+    private class TrackingSession extends WebSocketSessionDecorator {
+        
+        private final SessionState state;
+        
+        private TrackingSession(WebSocketSession session, SessionState state) {
+            super(session);
+            this.state = state;
+        }
+        
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            state.sendStartedAt = System.currentTimeMillis();
+            try {
+                super.sendMessage(message);
+            } finally {
+                state.sendStartedAt = 0;
+                int sent = bodyLength(message);
+                if (sent > 0) {
+                    state.queuedBytes.updateAndGet(queued -> Math.max(0, queued - sent));
+                }
+            }
+            if (state.hasConflated() && !state.isSlow()) {
+                flushConflated(state);
+            }
+        }
+        
+        @Override
+        public void close(CloseStatus status) throws IOException {
+            // 超过发送缓冲或发送时间上限时Spring以SESSION_NOT_RELIABLE关闭会话
+            if (CloseStatus.SESSION_NOT_RELIABLE.equals(status)) {
+                evictedCounter.increment();
+                log.warn("WebSocket会话发送过慢，已断开: sessionId={}, 待发送{}字节", getId(), state.queuedBytes.get());
+            }
+            super.close(status);
+        }
+    }
+}
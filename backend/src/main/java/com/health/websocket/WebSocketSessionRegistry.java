@@ -0,0 +1,196 @@
+package com.health.websocket;
+
+import com.health.security.StompPrincipal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocket会话集群登记
+ * 每个用户的会话所在节点记录在Redis Hash中（会话ID -> 节点ID），节点定时续期存活标记，
+ * 宕机节点遗留的登记在路由时清理；存活标记曾过期的节点在续期时重新登记本节点的全部会话
+ */
+@Slf4j
+@Component
+public class WebSocketSessionRegistry implements DisposableBean {
+    
+    private static final String SESSIONS_PREFIX = "health:ws:sessions:";
+    private static final String NODE_ALIVE_PREFIX = "health:ws:node:alive:";
+    
+    private final StringRedisTemplate redisTemplate;
+    private final boolean clusterEnabled;
+    private final String nodeId;
+    private final Long nodeTtlSeconds;
+    
+    /**
+     * 本节点会话ID -> 用户ID
+     */
+    private final Map<String, Long> localSessions = new ConcurrentHashMap<>();
+    
+    /**
+     * 有会话登记失败，下次续期时重新登记全部本节点会话
+     */
+    private volatile boolean reregisterPending;
+    
+    public WebSocketSessionRegistry(StringRedisTemplate redisTemplate,
+                                    @Value("${websocket.cluster.enabled:false}") boolean clusterEnabled,
+                                    @Value("${websocket.cluster.node-id:}") String nodeId,
+                                    @Value("${websocket.cluster.node-ttl-seconds:30}") Long nodeTtlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.clusterEnabled = clusterEnabled;
+        this.nodeId = StringUtils.hasText(nodeId) ? nodeId : UUID.randomUUID().toString().replace("-", "");
+        this.nodeTtlSeconds = nodeTtlSeconds;
+        if (clusterEnabled) {
+            heartbeat();
+            log.info("WebSocket集群模式已启用: nodeId={}", this.nodeId);
+        }
+    }
+    
+    public boolean isClusterEnabled() {
+        return clusterEnabled;
+    }
+    
+    public String getNodeId() {
+        return nodeId;
+    }
+    
+    public int getLocalSessionCount() {
+        return localSessions.size();
+    }
+    
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        String sessionId = StompHeaderAccessor.wrap(event.getMessage()).getSessionId();
+        if (!(user instanceof StompPrincipal) || sessionId == null) {
+            return;
+        }
+        Long userId = ((StompPrincipal) user).getUserId();
+        localSessions.put(sessionId, userId);
+        if (clusterEnabled) {
+            try {
+                redisTemplate.opsForHash().put(SESSIONS_PREFIX + userId, sessionId, nodeId);
+            } catch (Exception e) {
+                reregisterPending = true;
+                log.warn("登记WebSocket会话失败，下次续期时重试: userId={}, {}", userId, e.getMessage());
+            }
+        }
+    }
+    
+    @EventListener
+    public void onDisconnected(SessionDisconnectEvent event) {
+        Long userId = localSessions.remove(event.getSessionId());
+        if (userId != null && clusterEnabled) {
+            try {
+                redisTemplate.opsForHash().delete(SESSIONS_PREFIX + userId, event.getSessionId());
+            } catch (Exception e) {
+                log.warn("注销WebSocket会话失败: userId={}, {}", userId, e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * 持有该用户会话的其他存活节点
+     */
+    public Set<String> remoteNodesOf(Long userId) {
+        Set<String> nodes = new HashSet<>();
+        if (!clusterEnabled) {
+            return nodes;
+        }
+        String key = SESSIONS_PREFIX + userId;
+        Map<Object, Object> sessions = redisTemplate.opsForHash().entries(key);
+        if (sessions.isEmpty()) {
+            return nodes;
+        }
+        
+        Set<String> candidates = new HashSet<>();
+        sessions.values().forEach(node -> candidates.add(node.toString()));
+        candidates.remove(nodeId);
+        for (String node : candidates) {
+            if (Boolean.TRUE.equals(redisTemplate.hasKey(NODE_ALIVE_PREFIX + node))) {
+                nodes.add(node);
+            } else {
+                // 节点已失联，清理它遗留的会话登记
+                sessions.forEach((session, owner) -> {
+                    if (node.equals(owner.toString())) {
+                        redisTemplate.opsForHash().delete(key, session);
+                    }
+                });
+            }
+        }
+        return nodes;
+    }
+    
+    /**
+     * 续期本节点存活标记
+     * 标记已不存在（续期中断超过TTL或Redis数据丢失）时，其他节点可能已把本节点的会话登记当作遗留清理掉，
+     * 先恢复存活标记再重新登记全部本节点会话，避免发给这些用户的跨节点消息一直路由不到
+     */
+    @Scheduled(fixedDelayString = "${websocket.cluster.heartbeat-interval-ms:10000}")
+    public void heartbeat() {
+        if (!clusterEnabled) {
+            return;
+        }
+        String aliveKey = NODE_ALIVE_PREFIX + nodeId;
+        try {
+            boolean expired = !Boolean.TRUE.equals(redisTemplate.expire(aliveKey, nodeTtlSeconds, TimeUnit.SECONDS));
+            if (expired) {
+                redisTemplate.opsForValue().set(aliveKey, "1", nodeTtlSeconds, TimeUnit.SECONDS);
+            }
+            if ((expired || reregisterPending) && !localSessions.isEmpty()) {
+                reregisterPending = false;
+                registerLocalSessions();
+                log.info("已重新登记本节点WebSocket会话: 数量={}, 存活标记曾过期={}", localSessions.size(), expired);
+            }
+        } catch (Exception e) {
+            reregisterPending = true;
+            log.warn("WebSocket节点续期失败: {}", e.getMessage());
+        }
+    }
+    
+    private void registerLocalSessions() {
+        byte[] node = nodeId.getBytes(StandardCharsets.UTF_8);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            localSessions.forEach((sessionId, userId) -> connection.hSet(
+                    (SESSIONS_PREFIX + userId).getBytes(StandardCharsets.UTF_8),
+                    sessionId.getBytes(StandardCharsets.UTF_8), node));
+            return null;
+        });
+    }
+    
+    /**
+     * 停机时删除本节点的存活标记和全部会话登记
+     */
+    @Override
+    public void destroy() {
+        if (!clusterEnabled) {
+            return;
+        }
+        try {
+            redisTemplate.delete(NODE_ALIVE_PREFIX + nodeId);
+            localSessions.forEach((sessionId, userId) ->
+                    redisTemplate.opsForHash().delete(SESSIONS_PREFIX + userId, sessionId));
+        } catch (Exception e) {
+            log.warn("清理WebSocket会话登记失败: {}", e.getMessage());
+        }
+        localSessions.clear();
+    }
+}
@@ -15,7 +15,7 @@ CREATE TABLE IF NOT EXISTS `user` (
   `phone` VARCHAR(20) COMMENT '手机号',
   `email` VARCHAR(100) COMMENT '邮箱',
   `avatar` VARCHAR(255) COMMENT '头像URL',
-  `role` VARCHAR(20) NOT NULL COMMENT '角色: PATIENT, DOCTOR',
+  `role` VARCHAR(20) NOT NULL COMMENT '角色: PATIENT, DOCTOR, ADMIN(仅可在库中设置)',
   `status` TINYINT DEFAULT 1 COMMENT '状态 0-禁用 1-正常',
   `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
   `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
@@ -70,10 +70,43 @@ CREATE TABLE IF NOT EXISTS `health_record` (
   `sleep_hours` DECIMAL(4,2) COMMENT '睡眠时长(小时)',
   `notes` TEXT COMMENT '备注',
   `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
-  INDEX idx_user_date (`user_id`, `record_date`),
+  -- 覆盖游标分页的排序列(record_date, record_time, id)，id由InnoDB二级索引隐式附带
+  -- 已有库执行: ALTER TABLE health_record DROP INDEX idx_user_date, ADD INDEX idx_user_date (user_id, record_date, record_time);
+  INDEX idx_user_date (`user_id`, `record_date`, `record_time`),
   FOREIGN KEY (`user_id`) REFERENCES `user`(`id`) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='健康记录表';
 
+-- 健康记录日汇总表（由写入路径增量维护，定时任务重算校正）
+CREATE TABLE IF NOT EXISTS `health_record_daily` (
+  `id` BIGINT PRIMARY KEY AUTO_INCREMENT,
+  `user_id` BIGINT NOT NULL COMMENT '用户ID',
+  `stat_date` DATE NOT NULL COMMENT '统计日期',
+  `record_count` INT NOT NULL DEFAULT 0 COMMENT '记录数',
+  `systolic_count` INT NOT NULL DEFAULT 0 COMMENT '收缩压记录数',
+  `systolic_sum` BIGINT NOT NULL DEFAULT 0 COMMENT '收缩压合计',
+  `systolic_min` INT COMMENT '收缩压最小值',
+  `systolic_max` INT COMMENT '收缩压最大值',
+  `diastolic_count` INT NOT NULL DEFAULT 0 COMMENT '舒张压记录数',
+  `diastolic_sum` BIGINT NOT NULL DEFAULT 0 COMMENT '舒张压合计',
+  `diastolic_min` INT COMMENT '舒张压最小值',
+  `diastolic_max` INT COMMENT '舒张压最大值',
+  `heart_rate_count` INT NOT NULL DEFAULT 0 COMMENT '心率记录数',
+  `heart_rate_sum` BIGINT NOT NULL DEFAULT 0 COMMENT '心率合计',
+  `heart_rate_min` INT COMMENT '心率最小值',
+  `heart_rate_max` INT COMMENT '心率最大值',
+  `weight_count` INT NOT NULL DEFAULT 0 COMMENT '体重记录数',
+  `weight_sum` DECIMAL(14,2) NOT NULL DEFAULT 0 COMMENT '体重合计',
+  `weight_min` DECIMAL(5,2) COMMENT '体重最小值',
+  `weight_max` DECIMAL(5,2) COMMENT '体重最大值',
+  `steps_count` INT NOT NULL DEFAULT 0 COMMENT '步数记录数',
+  `steps_sum` BIGINT NOT NULL DEFAULT 0 COMMENT '步数合计',
+  `steps_min` INT COMMENT '步数最小值',
+  `steps_max` INT COMMENT '步数最大值',
+  `update_time` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+  UNIQUE KEY uk_user_date (`user_id`, `stat_date`),
+  FOREIGN KEY (`user_id`) REFERENCES `user`(`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='健康记录日汇总表';
+
 -- AI建议表
 CREATE TABLE IF NOT EXISTS `ai_suggestion` (
   `id` BIGINT PRIMARY KEY AUTO_INCREMENT,
@@ -100,6 +133,8 @@ CREATE TABLE IF NOT EXISTS `health_alert` (
   `threshold` VARCHAR(50) COMMENT '阈值',
   `message` TEXT COMMENT '预警信息',
   `status` TINYINT DEFAULT 0 COMMENT '状态 0-未处理 1-已处理',
+  -- 已有库执行: ALTER TABLE health_alert ADD COLUMN rule_version VARCHAR(64) COMMENT '产生预警的规则集版本' AFTER status;
+  `rule_version` VARCHAR(64) COMMENT '产生预警的规则集版本',
   `handled_by` BIGINT COMMENT '处理人ID',
   `handle_time` DATETIME COMMENT '处理时间',
   `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
@@ -165,12 +200,27 @@ CREATE TABLE IF NOT EXISTS `message` (
   `status` TINYINT DEFAULT 0 COMMENT '状态 0-未读 1-已读',
   `read_time` DATETIME COMMENT '读取时间',
   `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP,
-  INDEX idx_to_user_status (`to_user_id`, `status`),
+  -- 未读数重算按接收者和发送者分组，已有库执行:
+  -- ALTER TABLE message DROP INDEX idx_to_user_status, ADD INDEX idx_to_user_status (to_user_id, status, from_user_id);
+  INDEX idx_to_user_status (`to_user_id`, `status`, `from_user_id`),
+  -- 重连补发按ID顺序读取，已有库执行: ALTER TABLE message ADD INDEX idx_to_user_id (to_user_id, id);
+  INDEX idx_to_user_id (`to_user_id`, `id`),
   INDEX idx_conversation (`from_user_id`, `to_user_id`, `create_time`),
   FOREIGN KEY (`from_user_id`) REFERENCES `user`(`id`) ON DELETE CASCADE,
   FOREIGN KEY (`to_user_id`) REFERENCES `user`(`id`) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='消息表';
 
+-- 预警规则集表，保存上传的规则，各节点按最新一条加载
+CREATE TABLE IF NOT EXISTS `alert_rule_set` (
+  `id` BIGINT PRIMARY KEY AUTO_INCREMENT,
+  `version` VARCHAR(64) NOT NULL COMMENT '规则集版本',
+  `fingerprint` VARCHAR(64) NOT NULL COMMENT '规则内容指纹',
+  `content` MEDIUMTEXT NOT NULL COMMENT '规则文件(JSON: 文件名 -> DRL)',
+  `source` VARCHAR(50) COMMENT '来源',
+  `created_by` BIGINT COMMENT '上传人ID',
+  `create_time` DATETIME DEFAULT CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='预警规则集表';
+
 -- 插入测试数据
 -- 密码都是: password123 (BCrypt加密后)
 INSERT INTO `user` (`username`, `password`, `real_name`, `gender`, `age`, `phone`, `email`, `role`, `status`) VALUES
@@ -0,0 +1,184 @@
+package com.health.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 平台线程与虚拟线程配置的对比压测
+ * 对运行中的服务发起并发查询，输出吞吐量、延迟分位数，并通过actuator采样服务端内存和线程数，
+ * 计算每个并发请求占用的内存；分别对默认配置和virtual-threads配置启动的服务各跑一次对比
+ *
+ * 运行: java -cp target/test-classes:target/classes:$(cat cp.txt) com.health.config.ThreadModelBenchmark \
+ *          http://localhost:8080/api 用户名 密码 [并发数] [每并发请求数]
+ */
+public class ThreadModelBenchmark {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.out.println("参数: baseUrl username password [concurrency] [requestsPerWorker]");
+            return;
+        }
+        String baseUrl = args[0];
+        int concurrency = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+        int requestsPerWorker = args.length > 4 ? Integer.parseInt(args[4]) : 200;
+        
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors())))
+                .build();
+        String token = login(client, baseUrl, args[1], args[2]);
+        URI target = URI.create(baseUrl + "/health/records?pageNum=1&pageSize=20");
+        
+        // 预热
+        run(client, target, token, Math.min(concurrency, 20), 50, null);
+        
+        double heapBefore = metric(client, baseUrl, token, "jvm.memory.used");
+        double threadsBefore = metric(client, baseUrl, token, "jvm.threads.live");
+        
+        MetricSampler sampler = new MetricSampler(client, baseUrl, token);
+        Thread samplerThread = new Thread(sampler, "metric-sampler");
+        samplerThread.setDaemon(true);
+        samplerThread.start();
+        
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>(concurrency * requestsPerWorker));
+        long start = System.nanoTime();
+        int failures = run(client, target, token, concurrency, requestsPerWorker, latencies);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        sampler.stop();
+        samplerThread.join();
+        
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        System.out.printf("并发=%d, 请求=%d, 失败=%d%n", concurrency, sorted.size() + failures, failures);
+        System.out.printf("吞吐量: %.0f 请求/秒%n", sorted.size() / seconds);
+        System.out.printf("延迟: p50=%.1fms p99=%.1fms max=%.1fms%n",
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1.0));
+        System.out.printf("服务端线程: 压测前%.0f, 峰值%.0f%n", threadsBefore, sampler.peakThreads);
+        System.out.printf("服务端内存: 压测前%.1fMB, 峰值%.1fMB, 每并发请求%.1fKB%n",
+                heapBefore / 1048576, sampler.peakMemory / 1048576,
+                Math.max(0, sampler.peakMemory - heapBefore) / 1024 / concurrency);
+        System.exit(0);
+    }
+    
+    private static int run(HttpClient client, URI target, String token, int concurrency, int requestsPerWorker,
+                           List<Long> latencies) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        CountDownLatch done = new CountDownLatch(concurrency);
+        AtomicInteger failures = new AtomicInteger();
+        HttpRequest request = HttpRequest.newBuilder(target)
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        for (int w = 0; w < concurrency; w++) {
+            workers.execute(() -> {
+                try {
+                    for (int i = 0; i < requestsPerWorker; i++) {
+                        long begin = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                failures.incrementAndGet();
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                            continue;
+                        }
+                        if (latencies != null) {
+                            latencies.add(System.nanoTime() - begin);
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        workers.shutdown();
+        return failures.get();
+    }
+    
+    private static String login(HttpClient client, String baseUrl, String username, String password) throws Exception {
+        String body = MAPPER.createObjectNode().put("username", username).put("password", password).toString();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        JsonNode result = MAPPER.readTree(client.send(request, HttpResponse.BodyHandlers.ofString()).body());
+        if (result.path("code").asInt() != 200) {
+            throw new IllegalStateException("登录失败: " + result.path("message").asText());
+        }
+        return result.path("data").path("token").asText();
+    }
+    
+    private static double metric(HttpClient client, String baseUrl, String token, String name) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/metrics/" + name))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        JsonNode result = MAPPER.readTree(client.send(request, HttpResponse.BodyHandlers.ofString()).body());
+        return result.path("measurements").path(0).path("value").asDouble();
+    }
+    
+    private static double percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.size() - 1, Math.ceil(p * sorted.size()) - 1);
+        return sorted.get(Math.max(0, index)) / 1e6;
+    }
+    
+    /**
+     * 压测期间每200ms采样一次服务端内存和线程数，记录峰值
+     */
+    private static class MetricSampler implements Runnable {
+        
+        private final HttpClient client;
+        private final String baseUrl;
+        private final String token;
+        private volatile boolean stopped;
+        private volatile double peakMemory;
+        private volatile double peakThreads;
+        
+        private MetricSampler(HttpClient client, String baseUrl, String token) {
+            this.client = client;
+            this.baseUrl = baseUrl;
+            this.token = token;
+        }
+        
+        @Override
+        public void run() {
+            while (!stopped) {
+                try {
+                    peakMemory = Math.max(peakMemory, metric(client, baseUrl, token, "jvm.memory.used"));
+                    peakThreads = Math.max(peakThreads, metric(client, baseUrl, token, "jvm.threads.live"));
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    // 采样失败不影响压测
+                }
+            }
+        }
+        
+        private void stop() {
+            stopped = true;
+        }
+    }
+}
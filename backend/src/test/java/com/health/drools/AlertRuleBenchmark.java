@@ -0,0 +1,99 @@
+package com.health.drools;
+
+import com.health.config.DroolsConfig;
+import com.health.entity.HealthRecord;
+import org.kie.api.KieBase;
+import org.kie.api.runtime.KieSession;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * 预警规则执行方式压测
+ * 对比每次新建会话、无状态会话、有状态会话池三种方式在并发下的吞吐量
+ *
+ * 运行: mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt -Dmdep.includeScope=test
+ *      java -cp target/test-classes:target/classes:$(cat cp.txt) com.health.drools.AlertRuleBenchmark [线程数] [每线程次数]
+ */
+public class AlertRuleBenchmark {
+    
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        
+        KieBase kieBase = new DroolsConfig().kieBase(true);
+        
+        System.out.printf("线程数=%d, 每线程执行%d次%n", threads, iterations);
+        
+        run("newKieSession", threads, iterations, record -> {
+            KieSession session = kieBase.newKieSession();
+            try {
+                session.insert(record);
+                session.fireAllRules();
+            } finally {
+                session.dispose();
+            }
+        });
+        
+        try (AlertRuleEvaluator evaluator = new StatelessAlertRuleEvaluator(kieBase)) {
+            run("stateless", threads, iterations,
+                    record -> evaluator.evaluate(Collections.singletonList(record)));
+        }
+        
+        try (AlertRuleEvaluator evaluator = new PooledAlertRuleEvaluator(kieBase, threads, 1000)) {
+            run("pooled", threads, iterations,
+                    record -> evaluator.evaluate(Collections.singletonList(record)));
+        }
+    }
+    
+    private static void run(String name, int threads, int iterations, Consumer<HealthRecord> task)
+            throws InterruptedException {
+        // 预热
+        for (int i = 0; i < 2000; i++) {
+            task.accept(randomRecord());
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    for (int i = 0; i < iterations; i++) {
+                        task.accept(randomRecord());
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long elapsedNanos = System.nanoTime() - start;
+        executor.shutdown();
+        
+        long total = (long) threads * iterations;
+        double perSecond = total / (elapsedNanos / 1_000_000_000.0);
+        System.out.printf("%-14s 总次数=%d, 耗时=%dms, 吞吐=%.0f次/秒, 单核吞吐=%.0f次/秒%n",
+                name, total, elapsedNanos / 1_000_000, perSecond,
+                perSecond / Math.min(threads, Runtime.getRuntime().availableProcessors()));
+    }
+    
+    private static HealthRecord randomRecord() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        HealthRecord record = new HealthRecord();
+        record.setId(random.nextLong(1, Long.MAX_VALUE));
+        record.setUserId(random.nextLong(1, 10000));
+        record.setRecordDate(LocalDate.now());
+        record.setSystolicPressure(random.nextInt(80, 200));
+        record.setDiastolicPressure(random.nextInt(50, 120));
+        record.setHeartRate(random.nextInt(45, 130));
+        record.setBloodSugar(BigDecimal.valueOf(random.nextInt(30, 120), 1));
+        return record;
+    }
+}
@@ -0,0 +1,124 @@
+package com.health.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 跨节点消息转发压测
+ * 发送方连接节点A，接收方连接节点B，发送方连续发送消息，消息内容携带发送时刻，
+ * 接收方收到后计算端到端延迟，输出吞吐量和延迟分位数；两个地址相同时即为单节点基线
+ *
+ * 运行: java -cp target/test-classes:target/classes:$(cat cp.txt) com.health.websocket.ClusterRelayBenchmark \
+ *          http://节点A/api http://节点B/api 发送方用户名 接收方用户名 密码 [消息数]
+ */
+public class ClusterRelayBenchmark {
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    
+    public static void main(String[] args) throws Exception {
+        if (args.length < 5) {
+            System.out.println("参数: senderBaseUrl receiverBaseUrl senderUsername receiverUsername password [messages]");
+            return;
+        }
+        int messages = args.length > 5 ? Integer.parseInt(args[5]) : 2000;
+        HttpClient http = HttpClient.newHttpClient();
+        JsonNode sender = login(http, args[0], args[2], args[4]);
+        JsonNode receiver = login(http, args[1], args[3], args[4]);
+        
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>(messages));
+        CountDownLatch received = new CountDownLatch(messages);
+        StompSession receiverSession = connect(stompClient, args[1], receiver.path("token").asText());
+        receiverSession.subscribe("/user/queue/chat.messages", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+            
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                Object content = ((Map<?, ?>) payload).get("content");
+                latencies.add(System.nanoTime() - Long.parseLong(String.valueOf(content)));
+                received.countDown();
+            }
+        });
+        StompSession senderSession = connect(stompClient, args[0], sender.path("token").asText());
+        // 等待接收方会话登记到集群
+        Thread.sleep(1000);
+        
+        long toUserId = receiver.path("user").path("id").asLong();
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            Map<String, Object> request = Map.of(
+                    "clientMsgId", "bench-" + i,
+                    "toUserId", toUserId,
+                    "messageType", 1,
+                    "content", String.valueOf(System.nanoTime()));
+            senderSession.send("/app/chat.send", request);
+        }
+        boolean completed = received.await(60, TimeUnit.SECONDS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        System.out.printf("发送=%d, 收到=%d%s%n", messages, sorted.size(), completed ? "" : "（超时）");
+        System.out.printf("吞吐量: %.0f 消息/秒%n", sorted.size() / seconds);
+        System.out.printf("延迟: p50=%.1fms p99=%.1fms max=%.1fms%n",
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1.0));
+        senderSession.disconnect();
+        receiverSession.disconnect();
+        stompClient.stop();
+        System.exit(0);
+    }
+    
+    private static StompSession connect(WebSocketStompClient stompClient, String baseUrl, String token) throws Exception {
+        String wsUrl = baseUrl.replaceFirst("^http", "ws") + "/ws/chat/websocket";
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("Authorization", "Bearer " + token);
+        return stompClient.connect(wsUrl, new WebSocketHttpHeaders(), connectHeaders, new StompSessionHandlerAdapter() {
+        }).get(10, TimeUnit.SECONDS);
+    }
+    
+    private static JsonNode login(HttpClient client, String baseUrl, String username, String password) throws Exception {
+        String body = MAPPER.createObjectNode().put("username", username).put("password", password).toString();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        JsonNode result = MAPPER.readTree(client.send(request, HttpResponse.BodyHandlers.ofString()).body());
+        if (result.path("code").asInt() != 200) {
+            throw new IllegalStateException("登录失败: " + result.path("message").asText());
+        }
+        return result.path("data");
+    }
+    
+    private static double percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.size() - 1, Math.ceil(p * sorted.size()) - 1);
+        return sorted.get(Math.max(0, index)) / 1e6;
+    }
+}
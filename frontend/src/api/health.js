@@ -52,11 +52,11 @@ export function getStatistics(days = 30) {
   })
 }
 
-// 获取趋势数据
-export function getTrendData(indicator, days = 30) {
+// 获取趋势数据（按列返回 dates/times/values，超过 maxPoints 时服务端降采样）
+export function getTrendData(indicator, days = 30, maxPoints = 1000) {
   return request({
     url: '/health/trend',
     method: 'get',
-    params: { indicator, days }
+    params: { indicator, days, maxPoints }
   })
 }